@@ -188,6 +188,14 @@ public final class CSSFunctions extends SelectorDSL {
         return SelectorDSL.create(null).combine(type, forward);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    SelectorDSL condition(String query) {
+        return SelectorDSL.create(null).condition(query);
+    }
+
     /**
      * {@inheritDoc}
      */
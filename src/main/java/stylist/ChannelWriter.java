@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.List;
+
+import kiss.I;
+import stylist.Precompression.Compressor;
+
+/**
+ * {@link Appendable} which encodes the appended text into the reusable direct buffers as UTF-8
+ * and writes them to the {@link FileChannel} by gathering write. The same bytes are compressed into
+ * the variants of {@link Precompression} in the same pass. The byte buffers are reused by the
+ * subsequent writer on the same thread.
+ */
+class ChannelWriter implements Appendable, Closeable {
+
+    /** The size of each buffer. */
+    private static final int BufferSize = 16 * 1024;
+
+    /** The number of buffers to gather. */
+    private static final int BufferCount = 4;
+
+    /** The released buffers of each thread. */
+    private static final ThreadLocal<ByteBuffer[]> pool = new ThreadLocal();
+
+    /** The output file. */
+    private final Path path;
+
+    /** The output channel. */
+    private final FileChannel channel;
+
+    /** The compression configuration, null means no compression. */
+    private final Precompression compression;
+
+    /** The compressed outputs. */
+    private final List<Compressor> compressors;
+
+    /** The digest of the written bytes, null means no digest. */
+    private final MessageDigest digest;
+
+    /**
+     * The UTF-8 encoder which reports the malformed input like
+     * {@link java.nio.file.Files#newBufferedWriter(Path, java.nio.file.OpenOption...)}.
+     */
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    /** The pending characters. */
+    private final CharBuffer chars = CharBuffer.allocate(BufferSize);
+
+    /** The encoded bytes. */
+    private final ByteBuffer[] bytes;
+
+    /** The index of the current writing buffer. */
+    private int current;
+
+    /** The written size. */
+    private long size;
+
+    /**
+     * Open the specified file to write.
+     * 
+     * @param path A target file.
+     */
+    ChannelWriter(Path path) throws IOException {
+        this(path, null);
+    }
+
+    /**
+     * Open the specified file and its compressed variants to write.
+     * 
+     * @param path A target file.
+     * @param compression A compression configuration, null means no compression.
+     */
+    ChannelWriter(Path path, Precompression compression) throws IOException {
+        this(path, compression, null);
+    }
+
+    /**
+     * Open the specified file and its compressed variants to write.
+     * 
+     * @param path A target file.
+     * @param compression A compression configuration, null means no compression.
+     * @param digest A digest to update by the written bytes, null means no digest.
+     */
+    ChannelWriter(Path path, Precompression compression, MessageDigest digest) throws IOException {
+        this.path = path;
+        this.digest = digest;
+        this.compression = compression;
+        this.compressors = compression == null ? List.of() : compression.open(path);
+
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            for (Compressor compressor : compressors) {
+                I.quiet(compressor);
+            }
+            throw e;
+        }
+        this.bytes = acquire();
+    }
+
+    /**
+     * Take the released buffers of the current thread, or allocate new buffers if the other writer
+     * on the current thread is using them.
+     * 
+     * @return The cleared buffers.
+     */
+    private static ByteBuffer[] acquire() {
+        ByteBuffer[] buffers = pool.get();
+
+        if (buffers == null) {
+            buffers = new ByteBuffer[BufferCount];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = ByteBuffer.allocateDirect(BufferSize);
+            }
+        } else {
+            pool.set(null);
+
+            for (ByteBuffer buffer : buffers) {
+                buffer.clear();
+            }
+        }
+        return buffers;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Appendable append(CharSequence text) throws IOException {
+        text = String.valueOf(text);
+
+        return append(text, 0, text.length());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Appendable append(CharSequence text, int start, int end) throws IOException {
+        if (text == null) {
+            text = "null";
+        }
+
+        while (start < end) {
+            if (chars.hasRemaining() == false) {
+                encode(false);
+            }
+
+            int size = Math.min(chars.remaining(), end - start);
+            if (text instanceof String) {
+                chars.put((String) text, start, start + size);
+            } else {
+                for (int i = start; i < start + size; i++) {
+                    chars.put(text.charAt(i));
+                }
+            }
+            start += size;
+        }
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Appendable append(char c) throws IOException {
+        if (chars.hasRemaining() == false) {
+            encode(false);
+        }
+        chars.put(c);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        Throwable error = null;
+
+        try {
+            encode(true);
+
+            while (encoder.flush(bytes[current]).isOverflow()) {
+                next();
+            }
+            drain();
+
+            if (compression != null) {
+                compression.record(path, size);
+            }
+        } catch (Throwable e) {
+            error = e;
+        }
+
+        pool.set(bytes);
+        error = close(channel, error);
+        for (Compressor compressor : compressors) {
+            error = close(compressor, error);
+        }
+
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        } else if (error != null) {
+            throw I.quiet(error);
+        }
+    }
+
+    /**
+     * Close the specified resource even if the previous step failed. The first failure is kept and
+     * the subsequent failures are attached to it as suppressed.
+     * 
+     * @param resource A resource to close.
+     * @param error The first failure or null.
+     * @return The first failure or null.
+     */
+    static Throwable close(Closeable resource, Throwable error) {
+        try {
+            resource.close();
+        } catch (Throwable e) {
+            if (error == null) {
+                return e;
+            }
+            error.addSuppressed(e);
+        }
+        return error;
+    }
+
+    /**
+     * Encode all pending characters into the byte buffers. A trailing high surrogate is kept until
+     * its pair is appended.
+     * 
+     * @param endOfInput Whether any more input is appended or not.
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes[current], endOfInput);
+
+            if (result.isUnderflow()) {
+                break;
+            } else if (result.isOverflow()) {
+                next();
+            } else {
+                result.throwException();
+            }
+        }
+        chars.compact();
+    }
+
+    /**
+     * Switch to the next byte buffer, all buffers are written out when they are full.
+     */
+    private void next() throws IOException {
+        if (++current == bytes.length) {
+            drain();
+        }
+    }
+
+    /**
+     * Write out all byte buffers at once.
+     */
+    private void drain() throws IOException {
+        long remaining = 0;
+        for (ByteBuffer buffer : bytes) {
+            buffer.flip();
+            remaining += buffer.remaining();
+
+            for (Compressor compressor : compressors) {
+                compressor.write(buffer);
+            }
+
+            if (digest != null) {
+                digest.update(buffer.duplicate());
+            }
+        }
+        size += remaining;
+
+        while (0 < remaining) {
+            remaining -= channel.write(bytes);
+        }
+
+        for (ByteBuffer buffer : bytes) {
+            buffer.clear();
+        }
+        current = 0;
+    }
+}
\ No newline at end of file
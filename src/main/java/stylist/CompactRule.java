@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The frozen compact form of the finished {@link StyleRule} tree. All rules in the tree are
+ * flattened in document order into the parallel arrays, the property names are interned into the
+ * shared id table, and the builder-only state is dropped. It is suitable to retain a large number
+ * of compiled rules.
+ * <p>
+ * The formatter rebuilds the transient tree of each compact rule only while the rule is written,
+ * so the full trees are never retained at the same time. The retained size is not measured by any
+ * benchmark in this project, so the actual heap reduction depends on the shape of the styles.
+ */
+public final class CompactRule implements Comparable<CompactRule> {
+
+    /** The interned property names by id. */
+    private static volatile CSSValue[] table = new CSSValue[0];
+
+    /** The property name ids by name. */
+    private static final Map<CSSValue, Integer> ids = new HashMap();
+
+    /** The original style. */
+    final Style style;
+
+    /** The description. */
+    final String description;
+
+    /** The selector of each rule, the selector without vendor variant is kept as text. */
+    private final Object[] selectors;
+
+    /** The media query condition of each rule, null if no rule has condition. */
+    private final String[] media;
+
+    /** The index next to the last descendant of each rule. */
+    private final int[] ends;
+
+    /** The index of the first property of each rule, the last element is the number of properties. */
+    private final int[] offsets;
+
+    /** The property name ids. */
+    private final int[] names;
+
+    /** The property values. */
+    private final CSSValue[] values;
+
+    /**
+     * Flatten the specified rule tree.
+     * 
+     * @param root A root rule.
+     */
+    CompactRule(StyleRule root) {
+        List<StyleRule> rules = new ArrayList();
+        int properties = flatten(root, rules);
+
+        int size = rules.size();
+        this.style = root.style;
+        this.description = root.description;
+        this.selectors = new Object[size];
+        this.ends = new int[size];
+        this.offsets = new int[size + 1];
+        this.names = new int[properties];
+        this.values = new CSSValue[properties];
+
+        String[] media = null;
+        int property = 0;
+        for (int i = 0; i < size; i++) {
+            StyleRule rule = rules.get(i);
+            selectors[i] = rule.selector.vendors().equals(EnumSet.of(Vendor.Standard)) ? rule.selector.toString() : rule.selector;
+            offsets[i] = property;
+
+            if (rule.media != null) {
+                if (media == null) {
+                    media = new String[size];
+                }
+                media[i] = rule.media;
+            }
+
+            for (int j = 0; j < rule.properties.size(); j++) {
+                names[property] = intern(rule.properties.name(j));
+                values[property++] = rule.properties.value(j);
+            }
+        }
+        offsets[size] = property;
+        this.media = media;
+
+        end(root, 0, ends);
+    }
+
+    /**
+     * Collect all rules of the specified tree in document order.
+     * 
+     * @param rule A current rule.
+     * @param rules The collected rules.
+     * @return The number of properties in the tree.
+     */
+    private static int flatten(StyleRule rule, List<StyleRule> rules) {
+        rules.add(rule);
+
+        int properties = rule.properties.size();
+        for (StyleRule child : rule.children) {
+            properties += flatten(child, rules);
+        }
+        return properties;
+    }
+
+    /**
+     * Compute the index next to the last descendant of each rule.
+     * 
+     * @param rule A current rule.
+     * @param index The index of the current rule.
+     * @param ends The computed indices.
+     * @return The index next to the last descendant of the current rule.
+     */
+    private static int end(StyleRule rule, int index, int[] ends) {
+        int next = index + 1;
+
+        for (StyleRule child : rule.children) {
+            next = end(child, next, ends);
+        }
+        return ends[index] = next;
+    }
+
+    /**
+     * Get the number of rules in this tree.
+     * 
+     * @return The number of rules.
+     */
+    public int size() {
+        return selectors.length;
+    }
+
+    /**
+     * Rebuild the {@link StyleRule} tree. The rebuilt rules are independent of this compact form.
+     * 
+     * @return The root rule.
+     */
+    public StyleRule expand() {
+        return expand(0);
+    }
+
+    /**
+     * Rebuild the {@link StyleRule} tree of the specified rule.
+     * 
+     * @param index A rule index.
+     * @return The rebuilt rule.
+     */
+    private StyleRule expand(int index) {
+        Properties properties = new Properties();
+        CSSValue[] table = CompactRule.table;
+        for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+            properties.set(table[names[i]], values[i]);
+        }
+
+        Object selector = selectors[index];
+        StyleRule rule = new StyleRule(selector instanceof CSSValue ? (CSSValue) selector : CSSValue.of(selector), description, media == null ? null : media[index], style, properties);
+
+        for (int child = index + 1; child < ends[index]; child = ends[child]) {
+            rule.children.add(expand(child));
+        }
+        return rule;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int compareTo(CompactRule o) {
+        return description.compareTo(o.description);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return expand().toString();
+    }
+
+    /**
+     * Find the shared id of the specified property name.
+     * 
+     * @param name A property name.
+     * @return The interned id.
+     */
+    private static synchronized int intern(CSSValue name) {
+        Integer id = ids.get(name);
+
+        if (id == null) {
+            id = table.length;
+            ids.put(name, id);
+
+            CSSValue[] extended = Arrays.copyOf(table, id + 1);
+            extended[id] = name;
+            table = extended;
+        }
+        return id;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of the bulk compilation. The compiled rules are sorted in the same order as the
+ * sequential formatting, and the elapsed time of each declaring class is recorded.
+ */
+public final class Compilation {
+
+    /** The compiled rules. */
+    final List<StyleRule> rules;
+
+    /** The elapsed time by declaring class name. */
+    private final Map<String, Duration> timings;
+
+    /** The number of styles by declaring class name. */
+    private final Map<String, Integer> sizes;
+
+    /** The elapsed time of the whole compilation. */
+    private final Duration wallTime;
+
+    /**
+     * @param rules
+     * @param timings
+     * @param sizes
+     * @param wallTime
+     */
+    Compilation(List<StyleRule> rules, Map<String, Duration> timings, Map<String, Integer> sizes, Duration wallTime) {
+        this.rules = Collections.unmodifiableList(rules);
+        this.timings = Collections.unmodifiableMap(timings);
+        this.sizes = Collections.unmodifiableMap(sizes);
+        this.wallTime = wallTime;
+    }
+
+    /**
+     * Get the compiled rules.
+     * 
+     * @return The rules in emission order.
+     */
+    public List<StyleRule> rules() {
+        return rules;
+    }
+
+    /**
+     * Get the elapsed time of the whole compilation.
+     * 
+     * @return The wall time.
+     */
+    public Duration wallTime() {
+        return wallTime;
+    }
+
+    /**
+     * Get the elapsed time of each declaring class. It is the sum of the time to collect its styles
+     * and the time to evaluate them.
+     * 
+     * @return The elapsed time by declaring class name in the specified order.
+     */
+    public Map<String, Duration> timings() {
+        return timings;
+    }
+
+    /**
+     * Build the timing report. Each line consists of the elapsed time in microseconds, the number of
+     * styles and the declaring class name separated by tab, and the slowest class comes first. The
+     * first line is the wall time of the whole compilation.
+     * 
+     * @return A report.
+     */
+    public String report() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(wallTime.toNanos() / 1000).append('\t').append(rules.size()).append('\t').append("(wall)").append('\n');
+
+        timings.entrySet()
+                .stream()
+                .sorted(Map.Entry.<String, Duration> comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> builder.append(entry.getValue().toNanos() / 1000)
+                        .append('\t')
+                        .append(sizes.get(entry.getKey()))
+                        .append('\t')
+                        .append(entry.getKey())
+                        .append('\n'));
+
+        return builder.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import kiss.I;
+
+/**
+ * The stylesheet which is split into the critical part required for the first paint and the
+ * deferred part. The critical part is supposed to be inlined into the document, and the deferred
+ * part is supposed to be loaded after the first paint.
+ */
+public final class CriticalCSS {
+
+    /** The stylesheet required for the first paint. */
+    public final String critical;
+
+    /** The stylesheet which can be loaded later. */
+    public final String deferred;
+
+    /**
+     * @param critical
+     * @param deferred
+     */
+    CriticalCSS(String critical, String deferred) {
+        this.critical = critical;
+        this.deferred = deferred;
+    }
+
+    /**
+     * Split all managed styles of the specified formatter into the critical stylesheet which is
+     * required to render the specified documents and the deferred stylesheet.
+     * 
+     * @param formatter A formatter.
+     * @param documents The parsed HTML documents.
+     * @return The split stylesheet.
+     */
+    static CriticalCSS split(Stylist formatter, List<HTMLSnapshot> documents) {
+        List<StyleRule> roots = formatter.rules(formatter.targets());
+        List<StyleRule> rules = new ArrayList();
+        List<String> selectors = new ArrayList();
+
+        ArrayDeque<StyleRule> remaining = new ArrayDeque();
+        for (int i = roots.size() - 1; 0 <= i; i--) {
+            remaining.push(roots.get(i));
+        }
+
+        while (remaining.isEmpty() == false) {
+            StyleRule current = remaining.pop();
+
+            for (int i = current.children.size() - 1; 0 <= i; i--) {
+                remaining.push(current.children.get(i));
+            }
+
+            if (formatter.isWritten(current)) {
+                rules.add(current);
+                selectors.add(current.selector.toString());
+            }
+        }
+
+        SelectorMatcher.Index index = new SelectorMatcher.Index(selectors);
+        for (HTMLSnapshot document : documents) {
+            index.scan(document);
+        }
+
+        StringBuilder critical = new StringBuilder();
+        StringBuilder deferred = new StringBuilder();
+        Map<String, StringBuilder> criticalMedia = new LinkedHashMap();
+        Map<String, StringBuilder> deferredMedia = new LinkedHashMap();
+
+        try {
+            formatter.formatHeader(critical);
+            for (int i = 0; i < rules.size(); i++) {
+                StyleRule rule = rules.get(i);
+                boolean matched = index.isMatched(i);
+
+                if (rule.media == null) {
+                    formatter.writeRule(rule, matched ? critical : deferred);
+                } else {
+                    formatter.writeRule(rule, (matched ? criticalMedia : deferredMedia).computeIfAbsent(rule.media, key -> new StringBuilder()));
+                }
+            }
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+        formatter.writeMedia(criticalMedia, critical);
+        formatter.writeMedia(deferredMedia, deferred);
+
+        return new CriticalCSS(critical.toString(), deferred.toString());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the formatted text of rules. The cached text is identified by the original
+ * {@link Style} of the formatted rule, the content of the rule and the configuration of
+ * {@link Stylist}, so the same cache can be shared by several formatters. The least recently used text is discarded when
+ * the cache is full.
+ */
+public final class FragmentCache {
+
+    /** The maximum number of cached fragments. */
+    private final int maxSize;
+
+    /** The cached fragments in access order. */
+    private final LinkedHashMap<Key, Fragment> fragments = new LinkedHashMap(16, 0.75f, true) {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+            return maxSize < size();
+        }
+    };
+
+    /** The number of hits. */
+    private final LongAdder hits = new LongAdder();
+
+    /** The number of misses. */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create the cache with the specified size.
+     * 
+     * @param maxSize The maximum number of cached fragments.
+     */
+    public FragmentCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive. [" + maxSize + "]");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the number of cache hits.
+     * 
+     * @return The number of cache hits.
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of cache misses.
+     * 
+     * @return The number of cache misses.
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of cached fragments.
+     * 
+     * @return The number of cached fragments.
+     */
+    public synchronized int size() {
+        return fragments.size();
+    }
+
+    /**
+     * Discard all fragments formatted from the specified {@link Style}. Call this method when the
+     * style is redefined.
+     * 
+     * @param style A redefined style.
+     * @return Chainable API.
+     */
+    public synchronized FragmentCache invalidate(Style style) {
+        Iterator<Fragment> iterator = fragments.values().iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next().style == style) {
+                iterator.remove();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Discard all fragments.
+     * 
+     * @return Chainable API.
+     */
+    public synchronized FragmentCache invalidateAll() {
+        fragments.clear();
+        return this;
+    }
+
+    /**
+     * Find the cached fragment.
+     * 
+     * @param source A formatted style.
+     * @param content The content of the formatted rule, null if the rule is evaluated from the
+     *            style by the formatter itself.
+     * @param profile A configuration of the formatter.
+     * @return The cached fragment or null.
+     */
+    synchronized Fragment get(Style source, String content, Object profile) {
+        Fragment fragment = fragments.get(new Key(source, content, profile));
+
+        if (fragment == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return fragment;
+    }
+
+    /**
+     * Store the formatted fragment.
+     * 
+     * @param source A formatted style.
+     * @param content The content of the formatted rule, null if the rule is evaluated from the
+     *            style by the formatter itself.
+     * @param profile A configuration of the formatter.
+     * @param fragment A formatted fragment.
+     */
+    synchronized void put(Style source, String content, Object profile, Fragment fragment) {
+        fragments.put(new Key(source, content, profile), fragment);
+    }
+
+    /**
+     * The identity of cached fragment.
+     */
+    private static final class Key {
+
+        /** The formatted style which is compared by identity. */
+        private final Style source;
+
+        /** The content of the formatted rule. */
+        private final String content;
+
+        /** The configuration of the formatter. */
+        private final Object profile;
+
+        /**
+         * @param source
+         * @param content
+         * @param profile
+         */
+        private Key(Style source, String content, Object profile) {
+            this.source = source;
+            this.content = content;
+            this.profile = profile;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(source) * 31 + Objects.hashCode(content)) * 31 + profile.hashCode();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return source == other.source && Objects.equals(content, other.content) && profile.equals(other.profile);
+            } else {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The formatted text of rule.
+     */
+    static final class Fragment {
+
+        /** The original style. */
+        final Style style;
+
+        /** The sort key. */
+        final String description;
+
+        /** The formatted text. */
+        final String text;
+
+        /** The formatted text of the conditional rules by media query. */
+        final Map<String, String> media;
+
+        /**
+         * @param style
+         * @param description
+         * @param text
+         * @param media
+         */
+        Fragment(Style style, String description, String text, Map<String, String> media) {
+            this.style = style;
+            this.description = description;
+            this.text = text;
+            this.media = media;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lightweight DOM of the rendered HTML document. Only the element tree, the attributes and the
+ * presence of text are kept because the selector can match nothing else.
+ */
+final class HTMLSnapshot {
+
+    /** The elements which never have content. */
+    private static final Set<String> voids = Set.of("area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param", "source", "track", "wbr");
+
+    /** The elements which contain the raw text. */
+    private static final Set<String> raws = Set.of("script", "style", "textarea", "title");
+
+    /** The document node which is the parent of the root element. */
+    final Element document = new Element("", null);
+
+    /** All elements in document order. */
+    final List<Element> elements = new ArrayList();
+
+    /**
+     * Parse the specified HTML.
+     * 
+     * @param html A HTML text.
+     */
+    HTMLSnapshot(String html) {
+        Element current = document;
+        int length = html.length();
+        int i = 0;
+
+        while (i < length) {
+            int start = html.indexOf('<', i);
+
+            if (start == -1 || start + 1 == length) {
+                text(current, html, i, length);
+                break;
+            }
+            text(current, html, i, start);
+
+            char next = html.charAt(start + 1);
+            if (html.startsWith("<!--", start)) {
+                i = skip(html, "-->", start + 4);
+            } else if (next == '!' || next == '?') {
+                i = skip(html, ">", start + 2);
+            } else if (next == '/') {
+                int end = name(html, start + 2);
+                String name = html.substring(start + 2, end).toLowerCase(Locale.ROOT);
+
+                // close the nearest open element with the same name and all its open descendants
+                for (Element open = current; open != document; open = open.parent) {
+                    if (open.name.equals(name)) {
+                        current = open.parent;
+                        break;
+                    }
+                }
+                i = skip(html, ">", end);
+            } else if (Character.isLetter(next)) {
+                int end = name(html, start + 1);
+                Element element = new Element(html.substring(start + 1, end).toLowerCase(Locale.ROOT), current);
+                elements.add(element);
+
+                end = attributes(html, end, element);
+                i = Math.min(end + 1, length);
+
+                if (html.charAt(end - 1) != '/' && voids.contains(element.name) == false) {
+                    current = element;
+
+                    if (raws.contains(element.name)) {
+                        int close = html.indexOf("</", i);
+                        while (close != -1 && html.regionMatches(true, close + 2, element.name, 0, element.name.length()) == false) {
+                            close = html.indexOf("</", close + 2);
+                        }
+                        if (close == -1) {
+                            close = length;
+                        }
+                        text(current, html, i, close);
+                        i = close;
+                    }
+                }
+            } else {
+                i = start + 1;
+            }
+        }
+    }
+
+    /**
+     * Mark the element which contains the non-whitespace text.
+     * 
+     * @param element A current element.
+     * @param html A HTML text.
+     * @param start A start index of text.
+     * @param end An end index of text.
+     */
+    private static void text(Element element, String html, int start, int end) {
+        if (element.text == false) {
+            for (int i = start; i < end; i++) {
+                if (Character.isWhitespace(html.charAt(i)) == false) {
+                    element.text = true;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the end index of the tag or attribute name.
+     * 
+     * @param html A HTML text.
+     * @param start A start index of name.
+     * @return The end index of name.
+     */
+    private static int name(String html, int start) {
+        int i = start;
+        while (i < html.length()) {
+            char c = html.charAt(i);
+
+            if (c == '>' || c == '/' || c == '=' || Character.isWhitespace(c)) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Skip to the end of the specified terminator.
+     * 
+     * @param html A HTML text.
+     * @param terminator A terminator.
+     * @param start A start index.
+     * @return The index next to the terminator.
+     */
+    private static int skip(String html, String terminator, int start) {
+        int index = html.indexOf(terminator, start);
+
+        return index == -1 ? html.length() : index + terminator.length();
+    }
+
+    /**
+     * Parse all attributes of the start tag.
+     * 
+     * @param html A HTML text.
+     * @param start A start index of attributes.
+     * @param element A current element.
+     * @return The index of tag end.
+     */
+    private static int attributes(String html, int start, Element element) {
+        int length = html.length();
+        int i = start;
+
+        while (i < length) {
+            char c = html.charAt(i);
+
+            if (c == '>') {
+                break;
+            } else if (c == '/' || Character.isWhitespace(c)) {
+                i++;
+            } else {
+                int end = Math.max(i + 1, name(html, i));
+                String name = html.substring(i, end).toLowerCase(Locale.ROOT);
+                String value = "";
+
+                i = end;
+                while (i < length && Character.isWhitespace(html.charAt(i))) {
+                    i++;
+                }
+
+                if (i < length && html.charAt(i) == '=') {
+                    i++;
+                    while (i < length && Character.isWhitespace(html.charAt(i))) {
+                        i++;
+                    }
+
+                    if (i < length && (html.charAt(i) == '"' || html.charAt(i) == '\'')) {
+                        end = html.indexOf(html.charAt(i), i + 1);
+                        if (end == -1) {
+                            end = length;
+                        }
+                        value = html.substring(i + 1, end);
+                        i = Math.min(end + 1, length);
+                    } else {
+                        end = i;
+                        while (end < length && html.charAt(end) != '>' && Character.isWhitespace(html.charAt(end)) == false) {
+                            end++;
+                        }
+                        value = html.substring(i, end);
+                        i = end;
+                    }
+                }
+                element.attributes.putIfAbsent(name, value);
+            }
+        }
+
+        String classes = element.attributes.get("class");
+        if (classes != null) {
+            for (String name : classes.split("\\s+")) {
+                if (name.length() != 0) {
+                    element.classes.add(name);
+                }
+            }
+        }
+        return Math.min(i, length - 1);
+    }
+
+    /**
+     * The element node.
+     */
+    static final class Element {
+
+        /** The lower-case tag name. */
+        final String name;
+
+        /** The parent node, the document node has no parent. */
+        final Element parent;
+
+        /** The position in parent. */
+        final int index;
+
+        /** The child elements. */
+        final List<Element> children = new ArrayList();
+
+        /** The attributes. */
+        final Map<String, String> attributes = new HashMap();
+
+        /** The class names. */
+        final List<String> classes = new ArrayList();
+
+        /** The element contains the non-whitespace text. */
+        boolean text;
+
+        /**
+         * @param name
+         * @param parent
+         */
+        private Element(String name, Element parent) {
+            this.name = name;
+            this.parent = parent;
+
+            if (parent == null) {
+                this.index = 0;
+            } else {
+                this.index = parent.children.size();
+                parent.children.add(this);
+            }
+        }
+
+        /**
+         * Get the identifier.
+         * 
+         * @return
+         */
+        String id() {
+            return attributes.get("id");
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return name + attributes;
+        }
+    }
+}
\ No newline at end of file
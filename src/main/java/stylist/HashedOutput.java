@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import kiss.I;
+
+/**
+ * Writer of the output file whose name contains the content hash (e.g.
+ * style.0123456789abcdef.css). The content is written to the unique temporary file while it is
+ * hashed, and then the file is renamed to the hashed name unless the previous build has already
+ * written the same content. The hashed file is registered to the asset manifest which maps each
+ * logical file name to the hashed one.
+ */
+class HashedOutput {
+
+    /** The file name of the asset manifest. */
+    private static final String Assets = "assets.json";
+
+    /** The length of the content hash in file name. */
+    private static final int HashLength = 16;
+
+    /** The suffixes of the stylesheet and its compressed variants. */
+    private static final List<String> Suffixes = List.of("", ".gz", ".deflate");
+
+    /**
+     * Store the output file with the hashed name.
+     * 
+     * @param output A logical output file.
+     * @param precompression A compression configuration, null means no compression.
+     * @param content A content writer.
+     * @return The actual output file.
+     */
+    static Path store(Path output, Precompression precompression, Consumer<Appendable> content) {
+        try {
+            String name = output.getFileName().toString();
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Path temporary = Files.createTempFile(output.getParent(), name + ".", ".tmp");
+
+            try {
+                try (ChannelWriter writer = new ChannelWriter(temporary, precompression, digest)) {
+                    content.accept(writer);
+                }
+
+                byte[] sum = digest.digest();
+                String hash = hex(sum, HashLength);
+                int dot = name.lastIndexOf('.');
+                Path hashed = output.resolveSibling(dot <= 0 ? name + "." + hash : name.substring(0, dot) + "." + hash + name.substring(dot));
+                boolean unchanged = Files.exists(hashed) && MessageDigest.isEqual(sum, digest(hashed));
+
+                for (String suffix : Suffixes) {
+                    Path from = temporary.resolveSibling(temporary.getFileName() + suffix);
+                    Path to = hashed.resolveSibling(hashed.getFileName() + suffix);
+
+                    if (Files.exists(from)) {
+                        if (unchanged && Files.exists(to)) {
+                            // the previous build has already written the same content
+                            Files.delete(from);
+                        } else {
+                            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        }
+
+                        if (precompression != null) {
+                            precompression.rename(from, to);
+                        }
+                    }
+                }
+                register(output.resolveSibling(Assets), name, hashed.getFileName().toString());
+
+                return hashed;
+            } finally {
+                for (String suffix : Suffixes) {
+                    Files.deleteIfExists(temporary.resolveSibling(temporary.getFileName() + suffix));
+                }
+            }
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Compute the digest of the written file.
+     * 
+     * @param file A written file.
+     * @return The SHA-256 digest.
+     */
+    private static byte[] digest(Path file) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream input = Files.newInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            for (int read = input.read(buffer); read != -1; read = input.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Register the hashed file to the asset manifest.
+     * 
+     * @param manifest The asset manifest.
+     * @param name A logical file name.
+     * @param file A hashed file name.
+     */
+    private static synchronized void register(Path manifest, String name, String file) throws IOException {
+        Map<String, Object> assets = new TreeMap();
+
+        if (Files.exists(manifest)) {
+            assets.putAll((Map) Json.parse(Files.readString(manifest)));
+        }
+        assets.put(name, file);
+
+        try (ChannelWriter writer = new ChannelWriter(manifest)) {
+            writer.append(Json.write(assets));
+        }
+    }
+
+    /**
+     * Write the hexadecimal representation.
+     * 
+     * @param bytes A byte data.
+     * @param length A maximum length.
+     * @return The hexadecimal text.
+     */
+    private static String hex(byte[] bytes, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < bytes.length && builder.length() < length; i++) {
+            builder.append(Character.forDigit(bytes[i] >> 4 & 0xF, 16)).append(Character.forDigit(bytes[i] & 0xF, 16));
+        }
+        return builder.substring(0, Math.min(length, builder.length()));
+    }
+}
\ No newline at end of file
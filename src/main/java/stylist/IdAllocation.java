@@ -0,0 +1,394 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import kiss.I;
+
+/**
+ * Class name allocation by the usage frequency. The most frequently used styles get the shortest
+ * class names, and the allocated names are persisted as the mapping from {@link Style#detail()} to
+ * the class name, so they are stable between releases.
+ * <p>
+ * The mapping must be installed before the styles are used because the class name of the style is
+ * never changed once it is allocated. The mapping file specified by the system property
+ * "stylist.ids" is installed automatically.
+ * <p>
+ * In deterministic mode, the style which is not in the mapping gets the class name derived from
+ * the hash of its {@link Style#detail()} instead of the allocation order, so all JVMs which load
+ * the same styles emit the identical class names regardless of the initialization order. The hash
+ * space (52^8) makes the collision practically impossible, and the collision is never resolved by
+ * the initialization order but reported as the error, so it must be resolved by the mapping. The
+ * style whose detail is not stable (e.g. the local lambda) is also reported as the error instead
+ * of falling back to the allocation order.
+ */
+public final class IdAllocation {
+
+    /** The system property to specify the mapping file. */
+    public static final String MappingFile = "stylist.ids";
+
+    /** The detail which points the declaring field or the enum constant of it. */
+    private static final Pattern StableDetail = Pattern
+            .compile("[\\p{javaJavaIdentifierPart}.]+#\\p{javaJavaIdentifierPart}+(\\(\\p{javaJavaIdentifierPart}+#\\p{javaJavaIdentifierPart}+\\))?");
+
+    /** The installed class names by detail. */
+    private static final Map<String, String> mapping = new ConcurrentHashMap();
+
+    /** The system property to enable the deterministic mode. */
+    public static final String Deterministic = "stylist.deterministic";
+
+    /** The length of hashed class name. */
+    private static final int HashedLength = 8;
+
+    /** The number of hashed class names (52^8). */
+    private static final long HashedSpace = 53459728531456L;
+
+    /** The installed class names. */
+    private static final Set<String> reserved = ConcurrentHashMap.newKeySet();
+
+    /** The hashed class names and their details. */
+    private static final Map<String, String> hashed = new ConcurrentHashMap();
+
+    /** The deterministic mode. */
+    private static volatile boolean deterministic = Boolean.getBoolean(Deterministic);
+
+    static {
+        String file = System.getProperty(MappingFile);
+
+        if (file != null && file.length() != 0) {
+            load(Path.of(file));
+        }
+    }
+
+    /**
+     * Hide constructor.
+     */
+    private IdAllocation() {
+    }
+
+    /**
+     * Install the specified mapping. The installed mapping is applied to the styles which don't
+     * have the class name yet. The entry whose class name is already used by the other style (by
+     * the installed mapping, the hash or the allocation order) is skipped, so two styles never
+     * share one class name.
+     * 
+     * @param mapping The class names by detail.
+     * @return The details which are skipped because of the conflict.
+     * @throws IllegalArgumentException The mapping assigns the same class name to several details.
+     */
+    public static synchronized Set<String> install(Map<String, String> mapping) {
+        Map<String, String> details = new HashMap();
+        for (Map.Entry<String, String> entry : mapping.entrySet()) {
+            String duplicated = details.put(entry.getValue(), entry.getKey());
+
+            if (duplicated != null) {
+                throw new IllegalArgumentException("Class name [" + entry.getValue() + "] is assigned to both [" + duplicated + "] and [" + entry.getKey() + "].");
+            }
+        }
+
+        Set<String> skipped = new HashSet();
+        for (Map.Entry<String, String> entry : mapping.entrySet()) {
+            String detail = entry.getKey();
+            String name = entry.getValue();
+
+            if (isUsed(name, detail)) {
+                skipped.add(detail);
+            } else {
+                String previous = IdAllocation.mapping.put(detail, name);
+
+                if (previous != null) {
+                    reserved.remove(previous);
+                }
+                reserved.add(name);
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Test whether the specified class name is used by the style which has the other detail.
+     * 
+     * @param name A class name.
+     * @param detail A detail of style.
+     * @return A result.
+     */
+    private static boolean isUsed(String name, String detail) {
+        for (Map.Entry<String, String> entry : mapping.entrySet()) {
+            if (entry.getValue().equals(name) && entry.getKey().equals(detail) == false) {
+                return true;
+            }
+        }
+
+        String hashedDetail = hashed.get(name);
+        if (hashedDetail != null && hashedDetail.equals(detail) == false) {
+            return true;
+        }
+
+        Style owner = Stylist.owner(name);
+        return owner != null && detail.equals(owner.detail()) == false;
+    }
+
+    /**
+     * Enable or disable the deterministic mode. It is applied to the styles which don't have the
+     * class name yet, so it must be configured before the styles are used.
+     * 
+     * @param deterministic Derive the class name from the hash of {@link Style#detail()}.
+     */
+    public static void deterministic(boolean deterministic) {
+        IdAllocation.deterministic = deterministic;
+    }
+
+    /**
+     * Test whether the deterministic mode is enabled or not.
+     * 
+     * @return A result.
+     */
+    public static boolean isDeterministic() {
+        return deterministic;
+    }
+
+    /**
+     * Get the installed mapping.
+     * 
+     * @return The class names by detail.
+     */
+    public static Map<String, String> mapping() {
+        return Collections.unmodifiableMap(mapping);
+    }
+
+    /**
+     * Rank the styles by the usage recorded by {@link StyleUsage}.
+     * 
+     * @return The class names by detail.
+     */
+    public static Map<String, String> rankByUsage() {
+        Map<String, Long> frequencies = new HashMap();
+
+        for (Style style : Stylist.registered()) {
+            frequencies.merge(style.detail(), StyleUsage.count(style), Long::sum);
+        }
+        return rank(frequencies);
+    }
+
+    /**
+     * Rank the styles by the specified usage frequencies. The installed mapping is kept as it is,
+     * and the remaining shortest class names are allocated to the other styles in descending order
+     * of frequency.
+     * 
+     * @param frequencies The usage frequencies by detail.
+     * @return The class names by detail.
+     */
+    public static Map<String, String> rank(Map<String, Long> frequencies) {
+        Map<String, String> ranked = new HashMap(mapping);
+        Set<String> used = new HashSet(ranked.values());
+        List<String> details = new ArrayList();
+
+        for (String detail : frequencies.keySet()) {
+            if (isStable(detail) && ranked.containsKey(detail) == false) {
+                details.add(detail);
+            }
+        }
+        details.sort((one, other) -> {
+            int order = Long.compare(frequencies.get(other), frequencies.get(one));
+
+            return order != 0 ? order : one.compareTo(other);
+        });
+
+        int sequence = 0;
+        for (String detail : details) {
+            String name;
+            do {
+                name = Stylist.name(sequence++);
+            } while (used.contains(name));
+
+            used.add(name);
+            ranked.put(detail, name);
+        }
+        return ranked;
+    }
+
+    /**
+     * Read the mapping from the specified file and install it.
+     * 
+     * @param file A mapping file.
+     */
+    public static void load(Path file) {
+        try {
+            Map<String, String> loaded = new HashMap();
+
+            for (String line : Files.readAllLines(file)) {
+                int tab = line.indexOf('\t');
+
+                if (tab != -1) {
+                    loaded.put(line.substring(tab + 1), line.substring(0, tab));
+                }
+            }
+            install(loaded);
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Write the specified mapping to the file. Each line consists of the class name and the detail
+     * of style separated by tab.
+     * 
+     * @param file A mapping file.
+     * @param mapping The class names by detail.
+     */
+    public static void save(Path file, Map<String, String> mapping) {
+        Map<String, String> sorted = new TreeMap((one, other) -> {
+            String a = (String) one;
+            String b = (String) other;
+
+            return a.length() != b.length() ? Integer.compare(a.length(), b.length()) : a.compareTo(b);
+        });
+
+        for (Map.Entry<String, String> entry : mapping.entrySet()) {
+            sorted.put(entry.getValue(), entry.getKey());
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+            builder.append(entry.getKey()).append('\t').append(entry.getValue()).append('\n');
+        }
+
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.writeString(file, builder);
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Find the installed or hashed class name of the specified style. The detail of style is
+     * computed by reflection, so call this method outside of any lock or map operation.
+     * 
+     * @param style A target style.
+     * @return The predefined class name or null.
+     * @throws IllegalStateException The hashed name is not available.
+     */
+    static String predefined(Style style) {
+        if (mapping.isEmpty() && deterministic == false) {
+            return null;
+        }
+
+        String detail = style.detail();
+        String name = mapped(detail);
+        return name != null ? name : hashed(detail);
+    }
+
+    /**
+     * Find the installed class name of the specified detail.
+     * 
+     * @param detail A detail of style.
+     * @return The installed class name or null.
+     */
+    static String mapped(String detail) {
+        return isStable(detail) ? mapping.get(detail) : null;
+    }
+
+    /**
+     * Compute the class name of the specified detail from its hash. The styles which have the same
+     * detail get the same class name.
+     * 
+     * @param detail A detail of style.
+     * @return The hashed class name or null if the deterministic mode is disabled.
+     * @throws IllegalStateException The detail is not stable, or the hashed name is already used
+     *             by the other detail.
+     */
+    static String hashed(String detail) {
+        if (deterministic == false) {
+            return null;
+        }
+
+        if (isStable(detail) == false) {
+            throw new IllegalStateException("Style [" + detail + "] has no stable detail, so its class name can't be derived from the hash in deterministic mode. Declare it in the static field of the style definition.");
+        }
+
+        String name = hash(detail);
+        String owner = null;
+        for (Map.Entry<String, String> entry : mapping.entrySet()) {
+            if (entry.getValue().equals(name)) {
+                owner = entry.getKey();
+            }
+        }
+
+        if (owner == null) {
+            owner = hashed.putIfAbsent(name, detail);
+        }
+
+        if (owner != null && owner.equals(detail) == false) {
+            throw new IllegalStateException("Hashed class name [" + name + "] of [" + detail + "] collides with [" + owner + "]. Install the class name of either style by IdAllocation#install.");
+        }
+        return name;
+    }
+
+    /**
+     * Compute the class name from FNV-1a hash of the specified text.
+     * 
+     * @param text A text to hash.
+     * @return The class name which has the fixed length.
+     */
+    static String hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        // pad the high-order digits to keep the fixed length
+        String name = Stylist.name(Long.remainderUnsigned(hash, HashedSpace));
+        StringBuilder builder = new StringBuilder(name);
+        while (builder.length() < HashedLength) {
+            builder.append('A');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Test whether the specified class name is installed or hashed.
+     * 
+     * @param name A class name.
+     * @return A result.
+     */
+    static boolean isReserved(String name) {
+        return reserved.contains(name) || hashed.containsKey(name);
+    }
+
+    /**
+     * Only the detail which points the declaring field (Class#field) or the enum constant of the
+     * declaring field (Class#field(Enum#Constant)) is stable between releases. The detail of the
+     * other value or the lambda method is not stable.
+     * 
+     * @param detail A detail of style.
+     * @return A result.
+     */
+    static boolean isStable(String detail) {
+        return detail != null && StableDetail.matcher(detail).matches() && detail.contains("#lambda$") == false;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,378 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The minimal JSON reader and writer for the manifests and reports. The value is represented by
+ * {@link Map}, {@link List}, {@link String}, {@link Number}, {@link Boolean} and null.
+ * <p>
+ * The top-level object is written with one entry per line, the list of objects is written with one
+ * element per line, and the other values are written in a line.
+ */
+class Json {
+
+    /** The parsing text. */
+    private final String text;
+
+    /** The current parsing index. */
+    private int index;
+
+    /**
+     * Hide constructor.
+     * 
+     * @param text A JSON text.
+     */
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Write the JSON value.
+     * 
+     * @param value A value to write.
+     * @return A JSON text.
+     */
+    static String write(Object value) {
+        StringBuilder json = new StringBuilder();
+        write(json, value, 0);
+        return json.toString();
+    }
+
+    /**
+     * Write the JSON value.
+     * 
+     * @param json An output.
+     * @param value A value to write.
+     * @param depth The nesting depth of value.
+     */
+    private static void write(StringBuilder json, Object value, int depth) {
+        if (value == null || value instanceof Boolean || value instanceof Number) {
+            json.append(value);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map) value;
+            if (map.isEmpty()) {
+                json.append("{}");
+            } else {
+                // the top-level object is written with one entry per line
+                String separator = depth == 0 ? ",\n  " : ", ";
+
+                json.append(depth == 0 ? "{\n  " : "{");
+                for (Iterator<? extends Map.Entry> entries = map.entrySet().iterator(); entries.hasNext();) {
+                    Map.Entry entry = entries.next();
+                    json.append(quote(entry.getKey().toString())).append(": ");
+                    write(json, entry.getValue(), depth + 1);
+                    json.append(entries.hasNext() ? separator : "");
+                }
+                json.append(depth == 0 ? "\n}" : "}");
+            }
+        } else if (value instanceof List) {
+            List list = (List) value;
+            boolean multiline = list.stream().anyMatch(Map.class::isInstance);
+            String indent = "  ".repeat(depth);
+
+            json.append('[');
+            for (int i = 0; i < list.size(); i++) {
+                json.append(multiline ? (i == 0 ? "\n  " : ",\n  ") + indent : i == 0 ? "" : ", ");
+                write(json, list.get(i), depth + 1);
+            }
+            json.append(multiline ? "\n" + indent : "").append(']');
+        } else {
+            json.append(quote(value.toString()));
+        }
+    }
+
+    /**
+     * Write the JSON string literal.
+     * 
+     * @param text A text.
+     * @return The quoted text.
+     */
+    static String quote(String text) {
+        StringBuilder json = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            switch (c) {
+            case '"':
+                json.append("\\\"");
+                break;
+
+            case '\\':
+                json.append("\\\\");
+                break;
+
+            case '\b':
+                json.append("\\b");
+                break;
+
+            case '\f':
+                json.append("\\f");
+                break;
+
+            case '\n':
+                json.append("\\n");
+                break;
+
+            case '\r':
+                json.append("\\r");
+                break;
+
+            case '\t':
+                json.append("\\t");
+                break;
+
+            default:
+                if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * Parse the JSON text. The object is read as {@link LinkedHashMap}, the array is read as
+     * {@link ArrayList}, and the number is read as {@link Long} or {@link Double}.
+     * 
+     * @param text A JSON text.
+     * @return The parsed value.
+     * @throws IllegalArgumentException The text is not JSON.
+     */
+    static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.value();
+
+        if (json.skip() != -1) {
+            throw json.error();
+        }
+        return value;
+    }
+
+    /**
+     * Read the next value.
+     * 
+     * @return The read value.
+     */
+    private Object value() {
+        switch (skip()) {
+        case '{':
+            Map<String, Object> map = new LinkedHashMap();
+            index++;
+            if (skip() == '}') {
+                index++;
+                return map;
+            }
+
+            do {
+                if (skip() != '"') {
+                    throw error();
+                }
+                String key = string();
+                expect(':');
+                map.put(key, value());
+            } while (next(',', '}'));
+            return map;
+
+        case '[':
+            List<Object> list = new ArrayList();
+            index++;
+            if (skip() == ']') {
+                index++;
+                return list;
+            }
+
+            do {
+                list.add(value());
+            } while (next(',', ']'));
+            return list;
+
+        case '"':
+            return string();
+
+        case 't':
+            return literal("true", Boolean.TRUE);
+
+        case 'f':
+            return literal("false", Boolean.FALSE);
+
+        case 'n':
+            return literal("null", null);
+
+        default:
+            return number();
+        }
+    }
+
+    /**
+     * Read the string literal.
+     * 
+     * @return The unquoted text.
+     */
+    private String string() {
+        StringBuilder builder = new StringBuilder();
+        index++;
+
+        while (index < text.length()) {
+            char c = text.charAt(index++);
+
+            if (c == '"') {
+                return builder.toString();
+            } else if (c < 0x20) {
+                throw error();
+            } else if (c != '\\') {
+                builder.append(c);
+            } else if (index < text.length()) {
+                char escaped = text.charAt(index++);
+
+                switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    builder.append(escaped);
+                    break;
+
+                case 'b':
+                    builder.append('\b');
+                    break;
+
+                case 'f':
+                    builder.append('\f');
+                    break;
+
+                case 'n':
+                    builder.append('\n');
+                    break;
+
+                case 'r':
+                    builder.append('\r');
+                    break;
+
+                case 't':
+                    builder.append('\t');
+                    break;
+
+                case 'u':
+                    if (text.length() < index + 4) {
+                        throw error();
+                    }
+                    try {
+                        builder.append((char) Integer.parseInt(text.substring(index, index + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error();
+                    }
+                    index += 4;
+                    break;
+
+                default:
+                    throw error();
+                }
+            }
+        }
+        throw error();
+    }
+
+    /**
+     * Read the number literal.
+     * 
+     * @return The read number.
+     */
+    private Number number() {
+        int start = index;
+        while (index < text.length() && "+-0123456789.eE".indexOf(text.charAt(index)) != -1) {
+            index++;
+        }
+
+        String number = text.substring(start, index);
+        try {
+            if (number.matches("-?(0|[1-9]\\d*)")) {
+                return Long.parseLong(number);
+            } else if (number.matches("-?(0|[1-9]\\d*)(\\.\\d+)?([eE][+-]?\\d+)?")) {
+                return Double.parseDouble(number);
+            }
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        index = start;
+        throw error();
+    }
+
+    /**
+     * Read the specified literal.
+     * 
+     * @param literal A literal text.
+     * @param value A value of the literal.
+     * @return The value.
+     */
+    private Object literal(String literal, Object value) {
+        if (text.startsWith(literal, index) == false) {
+            throw error();
+        }
+        index += literal.length();
+        return value;
+    }
+
+    /**
+     * Read the specified character.
+     * 
+     * @param expected An expected character.
+     */
+    private void expect(char expected) {
+        if (skip() != expected) {
+            throw error();
+        }
+        index++;
+    }
+
+    /**
+     * Read the separator or the terminator of the container.
+     * 
+     * @param separator A separator character.
+     * @param terminator A terminator character.
+     * @return true if the next element follows.
+     */
+    private boolean next(char separator, char terminator) {
+        int c = skip();
+
+        if (c != separator && c != terminator) {
+            throw error();
+        }
+        index++;
+        return c == separator;
+    }
+
+    /**
+     * Skip the whitespaces.
+     * 
+     * @return The next character, -1 means the end of text.
+     */
+    private int skip() {
+        while (index < text.length() && " \t\r\n".indexOf(text.charAt(index)) != -1) {
+            index++;
+        }
+        return index < text.length() ? text.charAt(index) : -1;
+    }
+
+    /**
+     * Build the parsing error.
+     * 
+     * @return The error at the current index.
+     */
+    private IllegalArgumentException error() {
+        return new IllegalArgumentException("Invalid JSON at " + index + ": " + text);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Splitter of the stylesheet into the file of each media query. The rules of each media query are
+ * written in the separated file without @media block.
+ */
+class MediaSplit {
+
+    /** The file name of the unconditional stylesheet. */
+    private static final String MediaAll = "all.css";
+
+    /**
+     * Write out all managed styles into the file of each media query. The selector grouping is not
+     * used in this mode.
+     * 
+     * @param formatter A formatter.
+     * @param queries The media query by file name.
+     * @return The stylesheet files by file name.
+     */
+    static Map<String, String> split(Stylist formatter, Map<String, String> queries) {
+        List<StyleRule> rules = formatter.rules(formatter.targets());
+        StringBuilder all = new StringBuilder();
+        Map<String, StringBuilder> media = new LinkedHashMap();
+
+        formatter.formatHeader(all);
+        for (StyleRule rule : rules) {
+            formatter.format(rule, all, media);
+        }
+
+        Map<String, String> files = new LinkedHashMap();
+        files.put(MediaAll, all.toString());
+        queries.put(MediaAll, "all");
+
+        for (Map.Entry<String, StringBuilder> bucket : media.entrySet()) {
+            String name = bucket.getKey().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9.]+", "-").replaceAll("^-|-$", "");
+            String file = name + ".css";
+
+            for (int i = 2; files.containsKey(file); i++) {
+                file = name + "-" + i + ".css";
+            }
+            files.put(file, bucket.getValue().toString());
+            queries.put(file, bucket.getKey());
+        }
+        return files;
+    }
+}
\ No newline at end of file
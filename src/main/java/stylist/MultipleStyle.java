@@ -34,8 +34,11 @@ class MultipleStyle implements Style {
         Set<String> set = new HashSet();
 
         for (Style style : styles) {
-            for (String name : style.className()) {
-                set.add(name);
+            // don't use className() which records usage
+            String name = style.selector();
+
+            if (name.charAt(0) == '.') {
+                set.add(name.substring(1));
             }
         }
         this.names = set.toArray(new String[set.size()]);
@@ -79,6 +82,9 @@ class MultipleStyle implements Style {
      */
     @Override
     public String[] className() {
+        for (Style style : styles) {
+            StyleUsage.record(style);
+        }
         return names;
     }
 
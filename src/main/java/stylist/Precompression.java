@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Build-time compression of the stylesheet file. The compressed variants (.gz and optionally raw
+ * .deflate) are written alongside the stylesheet in the same pass, and the size of every written
+ * file is recorded for reporting.
+ * <p>
+ * Only the gzip variant is meant to be served by HTTP with "Content-Encoding: gzip". The raw
+ * .deflate variant (especially with the preset dictionary) is not the zlib stream which HTTP
+ * "deflate" encoding requires, so no browser can decode it. It is the artefact for the custom
+ * loader which inflates it by itself, and it is not written unless {@link #deflate(boolean)} is
+ * enabled.
+ */
+public final class Precompression {
+
+    /** The compression level. */
+    private int level = Deflater.BEST_COMPRESSION;
+
+    /** Write the raw deflate variant. */
+    private boolean deflate;
+
+    /** The preset dictionary for the raw deflate variant. */
+    private byte[] dictionary;
+
+    /** The written file sizes. */
+    private final Map<Path, Long> sizes = new ConcurrentSkipListMap();
+
+    /**
+     * Specify the compression level.
+     * 
+     * @param level A compression level (0-9), -1 means the default level.
+     * @return Chainable API.
+     */
+    public Precompression level(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || Deflater.BEST_COMPRESSION < level) {
+            throw new IllegalArgumentException("Compression level must be -1-9 : " + level);
+        }
+        this.level = level;
+        return this;
+    }
+
+    /**
+     * Write the raw deflate variant (.deflate) in addition to gzip. It is disabled by default. The
+     * variant can't be served as HTTP content encoding, it must be inflated by the custom loader.
+     * 
+     * @param deflate
+     * @return Chainable API.
+     */
+    public Precompression deflate(boolean deflate) {
+        this.deflate = deflate;
+        return this;
+    }
+
+    /**
+     * Specify the preset dictionary which is shared by all raw deflate variants. The dictionary is
+     * usually the frequent fragments of stylesheet (e.g. property names). Gzip variant never uses
+     * it because the standard gzip decoder can't know the dictionary, and the loader of the raw
+     * deflate variant must inflate it with the same dictionary.
+     * 
+     * @param dictionary A preset dictionary, null removes dictionary.
+     * @return Chainable API.
+     */
+    public Precompression dictionary(String dictionary) {
+        this.dictionary = dictionary == null ? null : dictionary.getBytes(StandardCharsets.UTF_8);
+        return this;
+    }
+
+    /**
+     * Get the sizes of all written files.
+     * 
+     * @return The byte size by file.
+     */
+    public Map<Path, Long> sizes() {
+        return Collections.unmodifiableMap(sizes);
+    }
+
+    /**
+     * Get the size of the specified written file.
+     * 
+     * @param file A written file.
+     * @return The byte size, -1 if the file is not written.
+     */
+    public long size(Path file) {
+        return sizes.getOrDefault(file, -1L);
+    }
+
+    /**
+     * Record the size of written file.
+     * 
+     * @param file A written file.
+     * @param size A byte size.
+     */
+    void record(Path file, long size) {
+        sizes.put(file, size);
+    }
+
+    /**
+     * Record the size of the renamed file.
+     * 
+     * @param from The original file.
+     * @param to The renamed file.
+     */
+    void rename(Path from, Path to) {
+        Long size = sizes.remove(from);
+
+        if (size != null) {
+            sizes.put(to, size);
+        }
+    }
+
+    /**
+     * Open all compressed variants of the specified file.
+     * 
+     * @param file A stylesheet file.
+     * @return The compressed outputs.
+     */
+    List<Compressor> open(Path file) throws IOException {
+        List<Compressor> compressors = new ArrayList();
+
+        try {
+            compressors.add(new Compressor(this, file.resolveSibling(file.getFileName() + ".gz"), true));
+            if (deflate) {
+                compressors.add(new Compressor(this, file.resolveSibling(file.getFileName() + ".deflate"), false));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Compressor compressor : compressors) {
+                try {
+                    compressor.abort();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+        return compressors;
+    }
+
+    /**
+     * Streaming compressor which writes the compressed bytes to the file channel.
+     */
+    static final class Compressor implements Closeable {
+
+        /** The size of output buffer. */
+        private static final int BufferSize = 16 * 1024;
+
+        /** The associated configuration. */
+        private final Precompression config;
+
+        /** The output file. */
+        private final Path file;
+
+        /** The output channel. */
+        private final FileChannel channel;
+
+        /** The deflater which writes no zlib wrapper. */
+        private final Deflater deflater;
+
+        /** The checksum of the uncompressed data, null for raw deflate. */
+        private final CRC32 crc;
+
+        /** The compressed bytes. */
+        private final ByteBuffer output = ByteBuffer.allocateDirect(BufferSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        /** The written size. */
+        private long size;
+
+        /**
+         * @param config
+         * @param file
+         * @param gzip
+         */
+        private Compressor(Precompression config, Path file, boolean gzip) throws IOException {
+            this.config = config;
+            this.file = file;
+            this.deflater = new Deflater(config.level, true);
+
+            try {
+                if (gzip) {
+                    this.crc = new CRC32();
+
+                    // magic, method (deflate), flags, mtime, extra flags and OS (unknown)
+                    output.put(new byte[] {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, (byte) (config.level == 9 ? 2 : config.level == 1 ? 4 : 0), (byte) 0xff});
+                } else {
+                    this.crc = null;
+
+                    if (config.dictionary != null) {
+                        deflater.setDictionary(config.dictionary);
+                    }
+                }
+                this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            } catch (IOException | RuntimeException e) {
+                // the deflater holds the native memory
+                deflater.end();
+                throw e;
+            }
+        }
+
+        /**
+         * Release the native memory and the file without writing the trailer.
+         */
+        private void abort() throws IOException {
+            try {
+                deflater.end();
+            } finally {
+                channel.close();
+            }
+        }
+
+        /**
+         * Compress the remaining bytes of the specified buffer. The position of the buffer is not
+         * changed.
+         * 
+         * @param input The uncompressed bytes.
+         */
+        void write(ByteBuffer input) throws IOException {
+            if (crc != null) {
+                crc.update(input.duplicate());
+            }
+
+            deflater.setInput(input.duplicate());
+            while (deflater.needsInput() == false) {
+                deflate();
+            }
+        }
+
+        /**
+         * Compress the pending input into the output buffer and write it out when it is full.
+         */
+        private void deflate() throws IOException {
+            deflater.deflate(output);
+
+            if (output.hasRemaining() == false) {
+                flush();
+            }
+        }
+
+        /**
+         * Write out the compressed bytes.
+         */
+        private void flush() throws IOException {
+            output.flip();
+            while (output.hasRemaining()) {
+                size += channel.write(output);
+            }
+            output.clear();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                deflater.finish();
+                while (deflater.finished() == false) {
+                    deflate();
+                }
+
+                if (crc != null) {
+                    if (output.remaining() < 8) {
+                        flush();
+                    }
+                    output.putInt((int) crc.getValue());
+                    output.putInt((int) deflater.getBytesRead());
+                }
+                flush();
+                config.record(file, size);
+            } finally {
+                deflater.end();
+                channel.close();
+            }
+        }
+    }
+}
\ No newline at end of file
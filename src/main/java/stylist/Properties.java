@@ -10,6 +10,8 @@
 package stylist;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -27,6 +29,9 @@ public final class Properties {
     /** The value list. */
     private final ArrayList<CSSValue> values = new ArrayList();
 
+    /** The frozen properties reject any modification. */
+    private boolean frozen;
+
     /**
      * Test property value literally.
      * 
@@ -80,6 +85,8 @@ public final class Properties {
      * @return An updated {@link Properties}.
      */
     public Properties set(CSSValue name, CSSValue value) {
+        modify();
+
         int index = name(name);
 
         if (index == -1) {
@@ -100,6 +107,8 @@ public final class Properties {
      * @return An updated {@link Properties}.
      */
     public Variable<CSSValue> remove(String name) {
+        modify();
+
         int index = name(name);
 
         if (index != -1) {
@@ -110,6 +119,28 @@ public final class Properties {
         }
     }
 
+    /**
+     * Replace the specified properties by the new property which is placed at the first position of
+     * them.
+     * 
+     * @param indices The indices of properties to remove.
+     * @param name A new property name.
+     * @param value A new property value.
+     */
+    void replace(int[] indices, CSSValue name, CSSValue value) {
+        modify();
+
+        int[] sorted = indices.clone();
+        Arrays.sort(sorted);
+
+        names.set(sorted[0], name);
+        values.set(sorted[0], value);
+        for (int i = sorted.length - 1; 0 < i; i--) {
+            names.remove(sorted[i]);
+            values.remove(sorted[i]);
+        }
+    }
+
     /**
      * <p>
      * Get the property size.
@@ -162,7 +193,7 @@ public final class Properties {
      * @return A list of property names.
      */
     public List<CSSValue> names() {
-        return names;
+        return frozen ? Collections.unmodifiableList(names) : names;
     }
 
     /**
@@ -172,6 +203,8 @@ public final class Properties {
      * @return Chainable API
      */
     public Properties rename(Function<CSSValue, CSSValue> renamer) {
+        modify();
+
         if (renamer != null) {
             for (int i = 0; i < names.size(); i++) {
                 names.set(i, renamer.apply(names.get(i)));
@@ -232,7 +265,7 @@ public final class Properties {
      * @return A list of property values.
      */
     public List<CSSValue> values() {
-        return values;
+        return frozen ? Collections.unmodifiableList(values) : values;
     }
 
     /**
@@ -293,6 +326,46 @@ public final class Properties {
         }
     }
 
+    /**
+     * Test whether this {@link Properties} is frozen or not.
+     * 
+     * @return A result.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Reject any modification after this method call.
+     * 
+     * @return This {@link Properties}.
+     */
+    Properties freeze() {
+        frozen = true;
+        return this;
+    }
+
+    /**
+     * Create the modifiable copy.
+     * 
+     * @return A copied {@link Properties}.
+     */
+    Properties copy() {
+        Properties copy = new Properties();
+        copy.names.addAll(names);
+        copy.values.addAll(values);
+        return copy;
+    }
+
+    /**
+     * Check whether this {@link Properties} can be modified or not.
+     */
+    private void modify() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The properties of snapshot can't be modified.");
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
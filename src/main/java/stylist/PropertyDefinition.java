@@ -21,7 +21,17 @@ import java.util.function.Function;
  */
 public class PropertyDefinition<T> {
 
-    /** The current processing property holder. */
+    /** The current processing property holder of each thread. */
+    private static final ThreadLocal<StyleRule> current = new ThreadLocal();
+
+    /**
+     * The current processing property holder.
+     * 
+     * @deprecated The evaluation context is confined to the current thread now, so this field is
+     *             never updated and always null. It is kept only to compile the existing subclass,
+     *             use {@link #rule()} instead.
+     */
+    @Deprecated(forRemoval = true)
     protected static StyleRule rule;
 
     /** The property name. */
@@ -211,7 +221,7 @@ public class PropertyDefinition<T> {
         }
 
         // declare property
-        rule.properties.set(propertyName, propertyValue);
+        rule().properties.set(propertyName, propertyValue);
 
         // API definition
         return context;
@@ -224,7 +234,35 @@ public class PropertyDefinition<T> {
      * @return A result.
      */
     protected final boolean is(String value) {
-        return rule.properties.contains(name, value);
+        return rule().properties.contains(name, value);
+    }
+
+    /**
+     * Get the current processing property holder. The evaluation context is confined to the
+     * current thread, so the independent styles can be evaluated concurrently.
+     * 
+     * @return The current rule or null.
+     */
+    protected static final StyleRule rule() {
+        return current.get();
+    }
+
+    /**
+     * Replace the current processing property holder of the current thread.
+     * 
+     * @param next The next rule, null clears the context.
+     * @return The previous rule or null.
+     */
+    static StyleRule swap(StyleRule next) {
+        StyleRule previous = current.get();
+
+        if (next == null) {
+            current.remove();
+        } else {
+            current.set(next);
+        }
+
+        return previous;
     }
 
     /**
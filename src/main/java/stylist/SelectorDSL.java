@@ -13,6 +13,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 
+import stylist.value.Numeric;
+
 /**
  * @version 2018/09/07 13:45:42
  */
@@ -39,6 +41,9 @@ public class SelectorDSL {
     /** The pseudo class list. */
     private final List<CSSValue> pseudoClasses = new ArrayList();
 
+    /** The media query condition. */
+    private String media;
+
     /**
      * <p>
      * Create new selector.
@@ -1194,6 +1199,61 @@ public class SelectorDSL {
         select(selector.selector()).declare(sub);
     }
 
+    // ===============================================================
+    // Conditional Rules
+    // ===============================================================
+
+    /**
+     * The @media CSS at-rule can be used to apply part of a style sheet based on the result of one
+     * or more media queries. The condition is combined with the condition of the enclosing rule by
+     * "and" which is distributed over each query of the media query lists, and all rules which have
+     * the same condition are written in the single @media block. The negated query ("not ...") and
+     * the different media types can't be combined.
+     * 
+     * @param query A media query list (e.g. "screen and (min-width: 768px)").
+     * @param sub A sub style.
+     */
+    public final void media(String query, Style sub) {
+        condition(query).declare(sub);
+    }
+
+    /**
+     * Apply the sub style only when the width of viewport is the specified width or more. This is
+     * shorthand method of {@link #media(String, Style)}.
+     * 
+     * @param width A breakpoint width.
+     * @param sub A sub style.
+     */
+    public final void minWidth(Numeric width, Style sub) {
+        media("(min-width:" + width + ")", sub);
+    }
+
+    /**
+     * Apply the sub style only when the width of viewport is the specified width or less. This is
+     * shorthand method of {@link #media(String, Style)}.
+     * 
+     * @param width A breakpoint width.
+     * @param sub A sub style.
+     */
+    public final void maxWidth(Numeric width, Style sub) {
+        media("(max-width:" + width + ")", sub);
+    }
+
+    /**
+     * Write media query condition.
+     * 
+     * @param query A media query list.
+     * @return Chainable API.
+     */
+    SelectorDSL condition(String query) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Media query is empty.");
+        }
+        root.media = query.strip();
+
+        return this;
+    }
+
     /**
      * Declare the specified new style with this selector expression.
      * 
@@ -1218,6 +1278,15 @@ public class SelectorDSL {
         return root.computeSelector();
     }
 
+    /**
+     * Get the media query condition of this {@link SelectorDSL}.
+     * 
+     * @return A media query list or null.
+     */
+    final String media() {
+        return root.media;
+    }
+
     /**
      * Compute the selector of this {@link SelectorDSL}.
      * 
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optimizer which merges the rules with the identical declaration block into one rule with the
+ * selector list. A rule is moved up to the previous rule with the same block only when no rule
+ * between them declares any property in the same family of its properties (e.g. margin and
+ * margin-top), so the cascade order is never changed.
+ */
+class SelectorGrouping {
+
+    /** The grouped rules in output order. */
+    final List<Group> groups = new ArrayList();
+
+    /** The latest mergeable group for each declaration block. */
+    private final Map<String, Group> latest = new HashMap();
+
+    /** The families of the property whose name doesn't start with its shorthand name. */
+    private static final Map<String, List<String>> aliases = Map.ofEntries( //
+            Map.entry("line-height", List.of("font")),
+            Map.entry("row-gap", List.of("gap", "grid")),
+            Map.entry("column-gap", List.of("gap", "grid", "column")),
+            Map.entry("gap", List.of("gap", "grid")),
+            Map.entry("column-width", List.of("column", "columns")),
+            Map.entry("column-count", List.of("column", "columns")),
+            Map.entry("top", List.of("inset")),
+            Map.entry("right", List.of("inset")),
+            Map.entry("bottom", List.of("inset")),
+            Map.entry("left", List.of("inset")),
+            Map.entry("place-content", List.of("align", "justify")),
+            Map.entry("place-items", List.of("align", "justify")),
+            Map.entry("place-self", List.of("align", "justify")));
+
+    /** The family which overlaps all properties. */
+    private static final String All = "all";
+
+    /** The index of the group which declares each property family at last. */
+    private final Map<String, Integer> declared = new HashMap();
+
+    /** The index of the last group which declares any property. */
+    private int last = -1;
+
+    /**
+     * Add the rule.
+     * 
+     * @param comment A comment of rule.
+     * @param selector A selector of rule.
+     * @param names All property names in rule.
+     * @param block The formatted declaration block.
+     */
+    void add(String comment, String selector, List<String> names, String block) {
+        boolean mergeable = block.length() != 0 && isMergeable(selector);
+
+        if (mergeable) {
+            Group group = latest.get(block);
+
+            if (group != null && isOverridden(group, names) == false) {
+                group.selectors.add(selector);
+                return;
+            }
+        }
+
+        Group group = new Group(groups.size(), comment, selector, block);
+        groups.add(group);
+
+        for (String name : names) {
+            for (String family : families(name)) {
+                declared.put(family, group.index);
+            }
+            last = group.index;
+        }
+
+        if (mergeable) {
+            latest.put(block, group);
+        }
+    }
+
+    /**
+     * Test whether any property in the same family is declared after the specified group or not.
+     * 
+     * @param group A target group.
+     * @param names All property names.
+     * @return A result.
+     */
+    private boolean isOverridden(Group group, List<String> names) {
+        for (String name : names) {
+            for (String family : families(name)) {
+                Integer index = family.equals(All) ? Integer.valueOf(last) : declared.get(family);
+
+                if (index != null && group.index < index) {
+                    return true;
+                }
+            }
+        }
+
+        Integer index = declared.get(All);
+        return index != null && group.index < index;
+    }
+
+    /**
+     * Compute the families of the specified property. The family is the name before the first
+     * hyphen without vendor prefix, so the shorthand property and its longhand properties are in
+     * the same family.
+     * 
+     * @param name A property name.
+     * @return The families.
+     */
+    static List<String> families(String name) {
+        if (name.startsWith("-")) {
+            int prefix = name.indexOf('-', 1);
+
+            if (prefix != -1) {
+                name = name.substring(prefix + 1);
+            }
+        }
+
+        if (name.equals(All)) {
+            return List.of(All);
+        }
+
+        List<String> alias = aliases.get(name);
+        if (alias != null) {
+            return alias;
+        }
+
+        int hyphen = name.indexOf('-');
+        String root = hyphen == -1 ? name : name.substring(0, hyphen);
+        return List.of(root);
+    }
+
+    /**
+     * Browsers drop the whole rule when the selector list contains the unknown vendor specific
+     * selector, so such selector must not be grouped.
+     * 
+     * @param selector A target selector.
+     * @return A result.
+     */
+    private boolean isMergeable(String selector) {
+        return selector.contains(":-") == false && selector.indexOf('@') == -1;
+    }
+
+    /**
+     * The rules with the same declaration block.
+     */
+    static class Group {
+
+        /** The position in output. */
+        private final int index;
+
+        /** The comment of the first rule. */
+        final String comment;
+
+        /** The selectors. */
+        private final List<String> selectors = new ArrayList();
+
+        /** The formatted declaration block. */
+        final String block;
+
+        /**
+         * @param index
+         * @param comment
+         * @param selector
+         * @param block
+         */
+        private Group(int index, String comment, String selector, String block) {
+            this.index = index;
+            this.comment = comment;
+            this.block = block;
+            this.selectors.add(selector);
+        }
+
+        /**
+         * Build the selector list.
+         * 
+         * @return
+         */
+        String selector() {
+            return String.join(",", selectors);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,784 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import stylist.HTMLSnapshot.Element;
+
+/**
+ * Complex selector which can be matched against {@link HTMLSnapshot}. The state-dependent
+ * pseudo-classes (e.g. :hover) and the unknown pseudo-classes can't be evaluated on the snapshot,
+ * so the matching is performed in two modes. In the possible mode they are assumed to be matched,
+ * and in the definite mode they are assumed not to be matched. The negation swaps the mode.
+ */
+final class SelectorMatcher {
+
+    /** The compound selectors from left to right. */
+    private final Compound[] compounds;
+
+    /** The combinator between the compound selector and the next one. */
+    private final char[] combinators;
+
+    /**
+     * @param compounds
+     * @param combinators
+     */
+    private SelectorMatcher(Compound[] compounds, char[] combinators) {
+        this.compounds = compounds;
+        this.combinators = combinators;
+    }
+
+    /**
+     * Compute the index key of the rightmost compound selector. The most selective one of the
+     * identifier, the class name, the tag name and the universal selector is used.
+     * 
+     * @return The index key.
+     */
+    String key() {
+        Compound last = compounds[compounds.length - 1];
+
+        if (last.id != null) {
+            return "#" + last.id;
+        } else if (last.classes.isEmpty() == false) {
+            return "." + last.classes.get(0);
+        } else if (last.name != null) {
+            return last.name;
+        } else {
+            return "*";
+        }
+    }
+
+    /**
+     * Test whether the specified element matches this selector.
+     * 
+     * @param element A target element.
+     * @param possible The matching mode.
+     * @return A result.
+     */
+    boolean matches(Element element, boolean possible) {
+        return match(compounds.length - 1, element, possible);
+    }
+
+    /**
+     * Match from right to left.
+     * 
+     * @param index The current compound index.
+     * @param element A target element.
+     * @param possible The matching mode.
+     * @return A result.
+     */
+    private boolean match(int index, Element element, boolean possible) {
+        if (compounds[index].matches(element, possible) == false) {
+            return false;
+        }
+
+        if (index == 0) {
+            return true;
+        }
+
+        switch (combinators[index - 1]) {
+        case '>':
+            return element.parent.parent != null && match(index - 1, element.parent, possible);
+
+        case '+':
+            return element.index != 0 && match(index - 1, element.parent.children.get(element.index - 1), possible);
+
+        case '~':
+            for (int i = element.index - 1; 0 <= i; i--) {
+                if (match(index - 1, element.parent.children.get(i), possible)) {
+                    return true;
+                }
+            }
+            return false;
+
+        default:
+            for (Element ancestor = element.parent; ancestor.parent != null; ancestor = ancestor.parent) {
+                if (match(index - 1, ancestor, possible)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Parse the selector list.
+     * 
+     * @param selector A selector list.
+     * @return The parsed selectors or null when the selector can't be parsed.
+     */
+    static List<SelectorMatcher> parse(String selector) {
+        try {
+            Parser parser = new Parser(selector);
+            List<SelectorMatcher> list = parser.list();
+
+            return parser.peek() == 0 ? list : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Test whether any selector matches the specified element.
+     * 
+     * @param selectors The selector list.
+     * @param element A target element.
+     * @param possible The matching mode.
+     * @return A result.
+     */
+    private static boolean any(List<SelectorMatcher> selectors, Element element, boolean possible) {
+        for (SelectorMatcher selector : selectors) {
+            if (selector.matches(element, possible)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compute the 1-based position of the element in its siblings.
+     * 
+     * @param element A target element.
+     * @param last Count from the last sibling.
+     * @param type Count only the siblings of the same type.
+     * @return The position.
+     */
+    private static int position(Element element, boolean last, boolean type) {
+        List<Element> siblings = element.parent.children;
+
+        if (type == false) {
+            return last ? siblings.size() - element.index : element.index + 1;
+        }
+
+        int position = 1;
+        int step = last ? 1 : -1;
+        for (int i = element.index + step; 0 <= i && i < siblings.size(); i += step) {
+            if (siblings.get(i).name.equals(element.name)) {
+                position++;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Parse the An+B notation.
+     * 
+     * @param expression An expression.
+     * @return The pair of A and B or null when the expression can't be parsed.
+     */
+    private static int[] nth(String expression) {
+        String text = expression.replaceAll("\\s", "").toLowerCase(Locale.ROOT);
+
+        if (text.equals("odd")) {
+            return new int[] {2, 1};
+        } else if (text.equals("even")) {
+            return new int[] {2, 0};
+        }
+
+        try {
+            int n = text.indexOf('n');
+            if (n == -1) {
+                return new int[] {0, Integer.parseInt(text)};
+            }
+
+            String a = text.substring(0, n);
+            String b = text.substring(n + 1);
+            return new int[] {a.isEmpty() || a.equals("+") ? 1 : a.equals("-") ? -1 : Integer.parseInt(a), b.isEmpty() ? 0 : Integer.parseInt(b)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Condition of the simple selector.
+     */
+    private interface Condition {
+
+        /**
+         * Test the specified element.
+         * 
+         * @param element A target element.
+         * @param possible The matching mode.
+         * @return A result.
+         */
+        boolean test(Element element, boolean possible);
+    }
+
+    /**
+     * The sequence of simple selectors.
+     */
+    private static final class Compound {
+
+        /** The lower-case tag name. */
+        private String name;
+
+        /** The identifier. */
+        private String id;
+
+        /** The class names. */
+        private final List<String> classes = new ArrayList();
+
+        /** The other conditions. */
+        private final List<Condition> conditions = new ArrayList();
+
+        /**
+         * Test whether the specified element matches all simple selectors.
+         * 
+         * @param element A target element.
+         * @param possible The matching mode.
+         * @return A result.
+         */
+        private boolean matches(Element element, boolean possible) {
+            if (name != null && name.equals(element.name) == false) {
+                return false;
+            }
+
+            if (id != null && id.equals(element.id()) == false) {
+                return false;
+            }
+
+            for (String name : classes) {
+                if (element.classes.contains(name) == false) {
+                    return false;
+                }
+            }
+
+            for (Condition condition : conditions) {
+                if (condition.test(element, possible) == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Recursive descent parser of the selector list.
+     */
+    private static final class Parser {
+
+        /** The selector text. */
+        private final String text;
+
+        /** The current position. */
+        private int position;
+
+        /**
+         * @param text
+         */
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Peek the current character.
+         * 
+         * @return The current character or 0 at the end.
+         */
+        private char peek() {
+            return position < text.length() ? text.charAt(position) : 0;
+        }
+
+        /**
+         * Consume the specified character if it is the current character.
+         * 
+         * @param c A character.
+         * @return A result.
+         */
+        private boolean consume(char c) {
+            if (peek() == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Consume the specified character.
+         * 
+         * @param c A character.
+         */
+        private void expect(char c) {
+            if (consume(c) == false) {
+                throw new IllegalArgumentException(text);
+            }
+        }
+
+        /**
+         * Skip the whitespaces.
+         * 
+         * @return True if any whitespace is skipped.
+         */
+        private boolean whitespace() {
+            int start = position;
+            while (Character.isWhitespace(peek())) {
+                position++;
+            }
+            return start != position;
+        }
+
+        /**
+         * Parse the selector list.
+         * 
+         * @return The parsed selectors.
+         */
+        private List<SelectorMatcher> list() {
+            List<SelectorMatcher> list = new ArrayList();
+
+            do {
+                list.add(complex());
+            } while (consume(','));
+
+            return list;
+        }
+
+        /**
+         * Parse the complex selector.
+         * 
+         * @return The parsed selector.
+         */
+        private SelectorMatcher complex() {
+            List<Compound> compounds = new ArrayList();
+            StringBuilder combinators = new StringBuilder();
+
+            whitespace();
+            compounds.add(compound());
+
+            while (true) {
+                boolean space = whitespace();
+                char c = peek();
+
+                if (c == '>' || c == '+' || c == '~') {
+                    position++;
+                    whitespace();
+                    combinators.append(c);
+                } else if (space && c != 0 && c != ',' && c != ')') {
+                    combinators.append(' ');
+                } else {
+                    break;
+                }
+                compounds.add(compound());
+            }
+            return new SelectorMatcher(compounds.toArray(new Compound[compounds.size()]), combinators.toString().toCharArray());
+        }
+
+        /**
+         * Parse the compound selector.
+         * 
+         * @return The parsed selector.
+         */
+        private Compound compound() {
+            Compound compound = new Compound();
+            int start = position;
+
+            while (true) {
+                char c = peek();
+
+                if (c == '*' && position == start) {
+                    position++;
+                } else if (c == '.') {
+                    position++;
+                    compound.classes.add(identifier());
+                } else if (c == '#') {
+                    position++;
+                    compound.id = identifier();
+                } else if (c == '[') {
+                    position++;
+                    compound.conditions.add(attribute());
+                } else if (c == ':') {
+                    position++;
+                    if (consume(':')) {
+                        // pseudo-element matches the originating element
+                        identifier();
+                        if (peek() == '(') {
+                            argument();
+                        }
+                    } else {
+                        compound.conditions.add(pseudo());
+                    }
+                } else if (position == start && isIdentifier(c)) {
+                    compound.name = identifier().toLowerCase(Locale.ROOT);
+                } else {
+                    break;
+                }
+            }
+
+            if (position == start) {
+                throw new IllegalArgumentException(text);
+            }
+            return compound;
+        }
+
+        /**
+         * Test whether the specified character can be a part of identifier.
+         * 
+         * @param c A character.
+         * @return A result.
+         */
+        private boolean isIdentifier(char c) {
+            return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '\\' || 0x80 <= c;
+        }
+
+        /**
+         * Parse the identifier.
+         * 
+         * @return The parsed identifier.
+         */
+        private String identifier() {
+            StringBuilder builder = new StringBuilder();
+
+            while (isIdentifier(peek())) {
+                char c = text.charAt(position++);
+
+                if (c == '\\') {
+                    if (position == text.length()) {
+                        throw new IllegalArgumentException(text);
+                    }
+                    c = text.charAt(position++);
+                }
+                builder.append(c);
+            }
+
+            if (builder.length() == 0) {
+                throw new IllegalArgumentException(text);
+            }
+            return builder.toString();
+        }
+
+        /**
+         * Parse the parenthesized argument.
+         * 
+         * @return The argument text.
+         */
+        private String argument() {
+            expect('(');
+
+            int start = position;
+            int depth = 1;
+            while (true) {
+                char c = peek();
+
+                if (c == 0) {
+                    throw new IllegalArgumentException(text);
+                }
+                position++;
+
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')' && --depth == 0) {
+                    return text.substring(start, position - 1);
+                }
+            }
+        }
+
+        /**
+         * Parse the attribute selector.
+         * 
+         * @return The parsed condition.
+         */
+        private Condition attribute() {
+            whitespace();
+            String name = identifier().toLowerCase(Locale.ROOT);
+            whitespace();
+
+            if (consume(']')) {
+                return (element, possible) -> element.attributes.containsKey(name);
+            }
+
+            char operator = peek();
+            if (operator == '=') {
+                position++;
+            } else if ("~|^$*".indexOf(operator) != -1) {
+                position++;
+                expect('=');
+            } else {
+                throw new IllegalArgumentException(text);
+            }
+            whitespace();
+
+            String value;
+            char quote = peek();
+            if (quote == '"' || quote == '\'') {
+                int end = text.indexOf(quote, position + 1);
+                if (end == -1) {
+                    throw new IllegalArgumentException(text);
+                }
+                value = text.substring(position + 1, end);
+                position = end + 1;
+            } else {
+                value = identifier();
+            }
+            whitespace();
+
+            boolean ignoreCase = consume('i') || consume('I');
+            if (ignoreCase == false) {
+                consume('s');
+            }
+            whitespace();
+            expect(']');
+
+            String expected = ignoreCase ? value.toLowerCase(Locale.ROOT) : value;
+
+            return (element, possible) -> {
+                String actual = element.attributes.get(name);
+
+                if (actual == null) {
+                    return false;
+                }
+
+                if (ignoreCase) {
+                    actual = actual.toLowerCase(Locale.ROOT);
+                }
+
+                switch (operator) {
+                case '~':
+                    for (String token : actual.split("\\s+")) {
+                        if (token.equals(expected)) {
+                            return true;
+                        }
+                    }
+                    return false;
+
+                case '|':
+                    return actual.equals(expected) || actual.startsWith(expected + "-");
+
+                case '^':
+                    return expected.length() != 0 && actual.startsWith(expected);
+
+                case '$':
+                    return expected.length() != 0 && actual.endsWith(expected);
+
+                case '*':
+                    return expected.length() != 0 && actual.contains(expected);
+
+                default:
+                    return actual.equals(expected);
+                }
+            };
+        }
+
+        /**
+         * Parse the pseudo-class.
+         * 
+         * @return The parsed condition.
+         */
+        private Condition pseudo() {
+            String name = identifier().toLowerCase(Locale.ROOT);
+            String argument = peek() == '(' ? argument() : null;
+
+            switch (name) {
+            case "root":
+                return (element, possible) -> element.parent.parent == null;
+
+            case "empty":
+                return (element, possible) -> element.children.isEmpty() && element.text == false;
+
+            case "first-child":
+                return nth(false, false, "1");
+
+            case "last-child":
+                return nth(true, false, "1");
+
+            case "only-child":
+                return (element, possible) -> element.parent.children.size() == 1;
+
+            case "first-of-type":
+                return nth(false, true, "1");
+
+            case "last-of-type":
+                return nth(true, true, "1");
+
+            case "only-of-type":
+                return (element, possible) -> position(element, false, true) == 1 && position(element, true, true) == 1;
+
+            case "nth-child":
+                return nth(false, false, argument);
+
+            case "nth-last-child":
+                return nth(true, false, argument);
+
+            case "nth-of-type":
+                return nth(false, true, argument);
+
+            case "nth-last-of-type":
+                return nth(true, true, argument);
+
+            case "not":
+                List<SelectorMatcher> negations = selectors(argument);
+                if (negations == null) {
+                    break;
+                }
+                return (element, possible) -> any(negations, element, !possible) == false;
+
+            case "is":
+            case "where":
+            case "matches":
+            case "any":
+            case "-webkit-any":
+            case "-moz-any":
+                List<SelectorMatcher> alternatives = selectors(argument);
+                if (alternatives == null) {
+                    break;
+                }
+                return (element, possible) -> any(alternatives, element, possible);
+            }
+
+            // state-dependent or unknown pseudo-class
+            return (element, possible) -> possible;
+        }
+
+        /**
+         * Build the condition of the An+B notation.
+         * 
+         * @param last Count from the last sibling.
+         * @param type Count only the siblings of the same type.
+         * @param argument An expression.
+         * @return The parsed condition.
+         */
+        private Condition nth(boolean last, boolean type, String argument) {
+            int[] nth = argument == null ? null : SelectorMatcher.nth(argument);
+
+            if (nth == null) {
+                return (element, possible) -> possible;
+            }
+
+            int a = nth[0];
+            int b = nth[1];
+
+            return (element, possible) -> {
+                int diff = position(element, last, type) - b;
+
+                return a == 0 ? diff == 0 : diff / a >= 0 && diff % a == 0;
+            };
+        }
+
+        /**
+         * Parse the selector list in the functional pseudo-class.
+         * 
+         * @param argument An argument.
+         * @return The parsed selectors or null.
+         */
+        private List<SelectorMatcher> selectors(String argument) {
+            return argument == null ? null : parse(argument);
+        }
+    }
+
+    /**
+     * The index of the rules by the rightmost compound selector. Each element in document looks up
+     * only the rules which can match it, so the rules and the elements are not compared in
+     * all-to-all.
+     */
+    static final class Index {
+
+        /** The selectors by the index key. */
+        private final Map<String, List<Entry>> entries = new HashMap();
+
+        /** The matching state of each rule. */
+        private final boolean[] matched;
+
+        /**
+         * Build the index.
+         * 
+         * @param selectors The selector of each rule.
+         */
+        Index(List<String> selectors) {
+            this.matched = new boolean[selectors.size()];
+
+            for (int i = 0; i < selectors.size(); i++) {
+                String selector = selectors.get(i);
+                List<SelectorMatcher> parsed = selector.startsWith("@") ? null : parse(selector);
+
+                if (parsed == null) {
+                    // the selector which can't be evaluated is treated as matched
+                    matched[i] = true;
+                } else {
+                    for (SelectorMatcher matcher : parsed) {
+                        entries.computeIfAbsent(matcher.key(), key -> new ArrayList()).add(new Entry(i, matcher));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Match all elements in the specified document.
+         * 
+         * @param snapshot A target document.
+         */
+        void scan(HTMLSnapshot snapshot) {
+            for (Element element : snapshot.elements) {
+                scan(element, "*");
+                scan(element, element.name);
+
+                String id = element.id();
+                if (id != null) {
+                    scan(element, "#" + id);
+                }
+
+                for (String name : element.classes) {
+                    scan(element, "." + name);
+                }
+            }
+        }
+
+        /**
+         * Match the rules with the specified key.
+         * 
+         * @param element A target element.
+         * @param key An index key.
+         */
+        private void scan(Element element, String key) {
+            List<Entry> list = entries.get(key);
+
+            if (list != null) {
+                for (Entry entry : list) {
+                    if (matched[entry.rule] == false && entry.matcher.matches(element, true)) {
+                        matched[entry.rule] = true;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Test whether the specified rule matches any element or not.
+         * 
+         * @param rule A rule index.
+         * @return A result.
+         */
+        boolean isMatched(int rule) {
+            return matched[rule];
+        }
+
+        /**
+         * The indexed selector.
+         */
+        private static final class Entry {
+
+            /** The rule index. */
+            private final int rule;
+
+            /** The selector. */
+            private final SelectorMatcher matcher;
+
+            /**
+             * @param rule
+             * @param matcher
+             */
+            private Entry(int rule, SelectorMatcher matcher) {
+                this.rule = rule;
+                this.matcher = matcher;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.List;
+
+/**
+ * Optimizer which collapses the longhand properties into the shortest equivalent shorthand
+ * property. The longhands are collapsed only when all of them are declared and the result is
+ * obviously equivalent.
+ */
+final class Shorthand {
+
+    /** The CSS-wide keywords which can't be mixed with other values in shorthand. */
+    private static final List<String> keywords = List.of("inherit", "initial", "unset", "revert");
+
+    /** The built-in shorthand families. */
+    private static final List<Shorthand> families = List.of( //
+            box("margin", "margin", "margin-top", "margin-right", "margin-bottom", "margin-left"),
+            box("padding", "padding", "padding-top", "padding-right", "padding-bottom", "padding-left"),
+            box("border", "border-width", "border-top-width", "border-right-width", "border-bottom-width", "border-left-width"),
+            box("border", "border-style", "border-top-style", "border-right-style", "border-bottom-style", "border-left-style"),
+            box("border", "border-color", "border-top-color", "border-right-color", "border-bottom-color", "border-left-color"),
+            box("border", "border-radius", "border-top-left-radius", "border-top-right-radius", "border-bottom-right-radius", "border-bottom-left-radius"),
+            sequence("flex", "flex", "flex-grow", "flex-shrink", "flex-basis"),
+            sequence("-webkit-flex", "-webkit-flex", "-webkit-flex-grow", "-webkit-flex-shrink", "-webkit-flex-basis"));
+
+    /** The root name of the related properties. */
+    private final String root;
+
+    /** The shorthand property name. */
+    private final String name;
+
+    /** The longhand property names in shorthand order. */
+    private final String[] longhands;
+
+    /** The box family accepts 1-4 values like margin. */
+    private final boolean box;
+
+    /**
+     * @param root
+     * @param name
+     * @param longhands
+     * @param box
+     */
+    private Shorthand(String root, String name, String[] longhands, boolean box) {
+        this.root = root;
+        this.name = name;
+        this.longhands = longhands;
+        this.box = box;
+    }
+
+    /**
+     * Collapse all longhands in the specified {@link Properties}.
+     * 
+     * @param properties A target properties.
+     */
+    static void compact(Properties properties) {
+        for (Shorthand family : families) {
+            family.collapse(properties);
+        }
+    }
+
+    /**
+     * Collapse the longhands of this family.
+     * 
+     * @param properties A target properties.
+     */
+    private void collapse(Properties properties) {
+        if (properties.name(name) != -1) {
+            return;
+        }
+
+        int min = Integer.MAX_VALUE;
+        int max = -1;
+        int[] indices = new int[longhands.length];
+        CSSValue[] values = new CSSValue[longhands.length];
+        boolean keyword = false;
+
+        for (int i = 0; i < longhands.length; i++) {
+            int index = properties.name(longhands[i]);
+
+            if (index == -1 || properties.name(index).vendors().size() != 1) {
+                return;
+            }
+
+            CSSValue value = properties.value(index);
+            if (value.vendors().size() != 1) {
+                return;
+            }
+
+            // The box shorthand can't express the longhand which has several values like the
+            // elliptical corner of border-radius.
+            if (box && isSingle(value.toString()) == false) {
+                return;
+            }
+
+            indices[i] = index;
+            values[i] = value;
+            keyword |= keywords.contains(value.toString());
+            min = Math.min(min, index);
+            max = Math.max(max, index);
+        }
+
+        // The other related property between longhands may be overridden by the moved longhand.
+        for (int i = min + 1; i < max; i++) {
+            String between = properties.name(i).toString();
+
+            if ((between.equals(root) || between.startsWith(root + "-")) && isLonghand(between) == false) {
+                return;
+            }
+        }
+
+        CSSValue shorthand;
+        if (keyword) {
+            // CSS-wide keyword is allowed only when it is the sole value.
+            if (box == false || isSame(values[0], values[1], values[2], values[3]) == false) {
+                return;
+            }
+            shorthand = values[0];
+        } else if (box) {
+            shorthand = box(values[0], values[1], values[2], values[3]);
+        } else {
+            shorthand = CSSValue.EMPTY;
+            for (CSSValue value : values) {
+                shorthand = shorthand.join(value);
+            }
+        }
+        properties.replace(indices, CSSValue.of(name), shorthand);
+    }
+
+    /**
+     * Test whether the specified name is longhand of this family.
+     * 
+     * @param name A property name.
+     * @return A result.
+     */
+    private boolean isLonghand(String name) {
+        for (String longhand : longhands) {
+            if (longhand.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Test whether the specified value is the single value or not. The whitespace in the function
+     * like rgb(0, 0, 0) doesn't separate values.
+     * 
+     * @param value A value to test.
+     * @return A result.
+     */
+    private static boolean isSingle(String value) {
+        int depth = 0;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && (c == '/' || Character.isWhitespace(c))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Build the shortest value of box family.
+     * 
+     * @param top A top value.
+     * @param right A right value.
+     * @param bottom A bottom value.
+     * @param left A left value.
+     * @return The shortest value.
+     */
+    private static CSSValue box(CSSValue top, CSSValue right, CSSValue bottom, CSSValue left) {
+        if (isSame(right, left)) {
+            if (isSame(top, bottom)) {
+                if (isSame(top, right)) {
+                    return top;
+                }
+                return top.join(right);
+            }
+            return top.join(right).join(bottom);
+        }
+        return top.join(right).join(bottom).join(left);
+    }
+
+    /**
+     * Test whether all values are same or not.
+     * 
+     * @param values
+     * @return
+     */
+    private static boolean isSame(CSSValue... values) {
+        String first = values[0].toString();
+
+        for (int i = 1; i < values.length; i++) {
+            if (first.equals(values[i].toString()) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Define the box family.
+     * 
+     * @param root
+     * @param name
+     * @param longhands
+     * @return
+     */
+    private static Shorthand box(String root, String name, String... longhands) {
+        return new Shorthand(root, name, longhands, true);
+    }
+
+    /**
+     * Define the family which concatenates all values.
+     * 
+     * @param root
+     * @param name
+     * @param longhands
+     * @return
+     */
+    private static Shorthand sequence(String root, String name, String... longhands) {
+        return new Shorthand(root, name, longhands, false);
+    }
+}
\ No newline at end of file
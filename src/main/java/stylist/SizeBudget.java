@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The size limits of the stylesheet. The exceeded limits are reported as the violations of
+ * {@link SizeReport}, and the strict budget fails the report.
+ */
+public final class SizeBudget {
+
+    /** The limit of the whole stylesheet, negative value means no limit. */
+    private long total = -1;
+
+    /** The limit of each declaring class, negative value means no limit. */
+    private long perClass = -1;
+
+    /** The limits by declaring class name. */
+    private final Map<String, Long> classes = new TreeMap();
+
+    /** Measure the gzip-estimated size instead of the raw size. */
+    private boolean gzip;
+
+    /** Fail on the exceeded limit. */
+    private boolean strict;
+
+    /**
+     * Specify the size limit of the whole stylesheet.
+     * 
+     * @param bytes A byte size, negative value means no limit.
+     * @return Chainable API.
+     */
+    public SizeBudget total(long bytes) {
+        this.total = bytes;
+        return this;
+    }
+
+    /**
+     * Specify the size limit which is applied to each declaring class.
+     * 
+     * @param bytes A byte size, negative value means no limit.
+     * @return Chainable API.
+     */
+    public SizeBudget perClass(long bytes) {
+        this.perClass = bytes;
+        return this;
+    }
+
+    /**
+     * Specify the size limit of the specified declaring class. It takes precedence over
+     * {@link #perClass(long)}.
+     * 
+     * @param declarer A declaring class.
+     * @param bytes A byte size, negative value means no limit.
+     * @return Chainable API.
+     */
+    public SizeBudget of(Class declarer, long bytes) {
+        classes.put(declarer.getCanonicalName(), bytes);
+        return this;
+    }
+
+    /**
+     * Measure the gzip-estimated size instead of the raw size.
+     * 
+     * @param gzip
+     * @return Chainable API.
+     */
+    public SizeBudget gzip(boolean gzip) {
+        this.gzip = gzip;
+        return this;
+    }
+
+    /**
+     * Throw {@link IllegalStateException} when any limit is exceeded. Otherwise the exceeded
+     * limits are only reported as the warnings.
+     * 
+     * @param strict
+     * @return Chainable API.
+     */
+    public SizeBudget strict(boolean strict) {
+        this.strict = strict;
+        return this;
+    }
+
+    /**
+     * Test whether the exceeded limit fails or not.
+     * 
+     * @return A result.
+     */
+    boolean isStrict() {
+        return strict;
+    }
+
+    /**
+     * Check the specified report.
+     * 
+     * @param report A measured report.
+     * @return The messages of all exceeded limits.
+     */
+    List<String> check(SizeReport report) {
+        List<String> violations = new ArrayList();
+        String unit = gzip ? " gzip bytes" : " bytes";
+
+        long size = gzip ? report.gzip() : report.raw();
+        if (0 <= total && total < size) {
+            violations.add("The stylesheet is " + size + unit + ", it exceeds the budget " + total + unit + ".");
+        }
+
+        for (SizeReport.Cost cost : report.classes()) {
+            long limit = classes.getOrDefault(cost.name, perClass);
+            size = gzip ? cost.gzip : cost.raw;
+
+            if (0 <= limit && limit < size) {
+                violations.add("The styles in " + cost.name + " are " + size + unit + ", it exceeds the budget " + limit + unit + ".");
+            }
+        }
+        return violations;
+    }
+}
\ No newline at end of file
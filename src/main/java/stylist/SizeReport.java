@@ -0,0 +1,408 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+
+import kiss.I;
+import stylist.FragmentCache.Fragment;
+
+/**
+ * The byte cost of the stylesheet. The emitted bytes are attributed to each style and its
+ * declaring class which is computed from {@link Style#detail()}. The gzip size of each style is
+ * estimated by the compressed bytes which the style adds to the whole stylesheet.
+ */
+public final class SizeReport {
+
+    /** The gzip header and trailer size. */
+    private static final int GzipOverhead = 18;
+
+    /** The costs of all styles in emission order. */
+    private final List<Cost> rules = new ArrayList();
+
+    /** The declarations by text. */
+    private final Map<String, List<String>> declarations = new TreeMap();
+
+    /** The streaming compressor to estimate the gzip size of each style. */
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+
+    /** The compressed output buffer. */
+    private final byte[] buffer = new byte[8192];
+
+    /** The raw size of the whole stylesheet. */
+    private long raw;
+
+    /** The gzip size of the whole stylesheet. */
+    private long gzip;
+
+    /** The exceeded budgets. */
+    private List<String> violations = List.of();
+
+    /**
+     * Hide constructor.
+     */
+    private SizeReport() {
+    }
+
+    /**
+     * Measure the byte cost of all managed styles of the specified formatter. The cost is measured
+     * on the plain emission, and each rule is processed only once.
+     * 
+     * @param formatter A formatter.
+     * @return The size report.
+     */
+    static SizeReport measure(Stylist formatter) {
+        List<StyleRule> rules = formatter.rules(formatter.targets());
+        SizeReport report = new SizeReport();
+        StringBuilder output = new StringBuilder();
+        Map<String, StringBuilder> media = new LinkedHashMap();
+
+        formatter.formatHeader(output);
+        report.header(output);
+
+        for (StyleRule rule : rules) {
+            // the processed properties are recorded while the rule is written
+            Fragment fragment = formatter.render(rule, (current, properties) -> {
+                for (int i = 0; i < properties.size(); i++) {
+                    report.declaration(properties.name(i) + ":" + properties.value(i).format(formatter), current.selector.toString());
+                }
+            });
+            StringBuilder text = new StringBuilder(fragment.text);
+            for (String conditional : fragment.media.values()) {
+                text.append(conditional);
+            }
+            report.rule(rule.description, StyleChunks.declarer(rule.description), text);
+            formatter.append(fragment, output, media);
+        }
+        formatter.writeMedia(media, output);
+        report.complete(output);
+
+        return report;
+    }
+
+    /**
+     * Record the header (imports, animations and themes) which precedes all styles.
+     * 
+     * @param text The formatted text.
+     */
+    private void header(CharSequence text) {
+        estimate(text);
+    }
+
+    /**
+     * Record the formatted style.
+     * 
+     * @param detail The detail of style.
+     * @param declarer The declaring class name.
+     * @param text The formatted text.
+     */
+    private void rule(String detail, String declarer, CharSequence text) {
+        long size = text.toString().getBytes(StandardCharsets.UTF_8).length;
+        rules.add(new Cost(detail, declarer, size, estimate(text), 1));
+    }
+
+    /**
+     * Record the declaration of rule.
+     * 
+     * @param declaration The declaration text (e.g. "display:block").
+     * @param selector The selector of the declaring rule.
+     */
+    private void declaration(String declaration, String selector) {
+        List<String> selectors = declarations.computeIfAbsent(declaration, key -> new ArrayList());
+
+        if (selectors.contains(selector) == false) {
+            selectors.add(selector);
+        }
+    }
+
+    /**
+     * Record the whole stylesheet and complete this report.
+     * 
+     * @param text The formatted stylesheet.
+     */
+    private void complete(CharSequence text) {
+        deflater.end();
+
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        Deflater whole = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            whole.setInput(bytes);
+            whole.finish();
+
+            long size = GzipOverhead;
+            while (whole.finished() == false) {
+                size += whole.deflate(buffer);
+            }
+
+            this.raw = bytes.length;
+            this.gzip = size;
+        } finally {
+            whole.end();
+        }
+    }
+
+    /**
+     * Estimate the compressed bytes which the specified text adds to the stream.
+     * 
+     * @param text A text to compress.
+     * @return The compressed size.
+     */
+    private long estimate(CharSequence text) {
+        deflater.setInput(text.toString().getBytes(StandardCharsets.UTF_8));
+
+        long size = 0;
+        int written;
+        do {
+            written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            size += written;
+        } while (written == buffer.length);
+        return size;
+    }
+
+    /**
+     * Check the budget.
+     * 
+     * @param budget A size budget.
+     * @return This report.
+     */
+    SizeReport check(SizeBudget budget) {
+        violations = Collections.unmodifiableList(budget.check(this));
+
+        if (budget.isStrict() && violations.isEmpty() == false) {
+            throw new IllegalStateException(String.join(" ", violations));
+        }
+        return this;
+    }
+
+    /**
+     * Get the raw size of the whole stylesheet.
+     * 
+     * @return The byte size.
+     */
+    public long raw() {
+        return raw;
+    }
+
+    /**
+     * Get the gzip size of the whole stylesheet.
+     * 
+     * @return The byte size.
+     */
+    public long gzip() {
+        return gzip;
+    }
+
+    /**
+     * Get the costs of all styles in emission order.
+     * 
+     * @return The costs.
+     */
+    public List<Cost> rules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Get the costs of all declaring classes in descending order of raw size.
+     * 
+     * @return The costs.
+     */
+    public List<Cost> classes() {
+        Map<String, Cost> classes = new LinkedHashMap();
+
+        for (Cost rule : rules) {
+            classes.merge(rule.declarer, new Cost(rule.declarer, rule.declarer, rule.raw, rule.gzip, 1), (one, other) -> new Cost(one.name, one.declarer, one.raw + other.raw, one.gzip + other.gzip, one.count + other.count));
+        }
+
+        List<Cost> costs = new ArrayList(classes.values());
+        costs.sort((one, other) -> Long.compare(other.raw, one.raw));
+        return costs;
+    }
+
+    /**
+     * Get the declarations which are written in several rules.
+     * 
+     * @return The duplicated declarations.
+     */
+    public List<Duplicate> duplicates() {
+        List<Duplicate> duplicates = new ArrayList();
+
+        for (Map.Entry<String, List<String>> entry : declarations.entrySet()) {
+            if (1 < entry.getValue().size()) {
+                duplicates.add(new Duplicate(entry.getKey(), entry.getValue()));
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * Get the messages of all exceeded budgets.
+     * 
+     * @return The messages.
+     */
+    public List<String> violations() {
+        return violations;
+    }
+
+    /**
+     * Write this report as JSON.
+     * 
+     * @param file An output file.
+     * @return The output file.
+     */
+    public Path writeTo(Path file) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.writeString(file, toJSON());
+            return file;
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Build the machine-readable report.
+     * 
+     * @return A JSON text.
+     */
+    public String toJSON() {
+        List<Map<String, Object>> duplicates = new ArrayList();
+        for (Duplicate duplicate : duplicates()) {
+            Map<String, Object> entry = new LinkedHashMap();
+            entry.put("declaration", duplicate.declaration);
+            entry.put("waste", duplicate.waste());
+            entry.put("selectors", duplicate.selectors);
+            duplicates.add(entry);
+        }
+
+        Map<String, Object> json = new LinkedHashMap();
+        json.put("raw", raw);
+        json.put("gzip", gzip);
+        json.put("classes", costs(classes()));
+        json.put("rules", costs(rules));
+        json.put("duplicates", duplicates);
+        json.put("violations", violations);
+
+        return Json.write(json);
+    }
+
+    /**
+     * Build the cost list.
+     * 
+     * @param costs The costs to write.
+     * @return The JSON objects.
+     */
+    private static List<Map<String, Object>> costs(List<Cost> costs) {
+        List<Map<String, Object>> json = new ArrayList();
+        for (Cost cost : costs) {
+            Map<String, Object> entry = new LinkedHashMap();
+            entry.put("name", cost.name);
+            entry.put("declarer", cost.declarer);
+            entry.put("raw", cost.raw);
+            entry.put("gzip", cost.gzip);
+            entry.put("rules", cost.count);
+            json.add(entry);
+        }
+        return json;
+    }
+
+    /**
+     * The byte cost of the style or the declaring class.
+     */
+    public static final class Cost {
+
+        /** The detail of style or the declaring class name. */
+        public final String name;
+
+        /** The declaring class name. */
+        public final String declarer;
+
+        /** The raw byte size. */
+        public final long raw;
+
+        /** The estimated gzip byte size. */
+        public final long gzip;
+
+        /** The number of styles. */
+        public final int count;
+
+        /**
+         * @param name
+         * @param declarer
+         * @param raw
+         * @param gzip
+         * @param count
+         */
+        private Cost(String name, String declarer, long raw, long gzip, int count) {
+            this.name = name;
+            this.declarer = declarer;
+            this.raw = raw;
+            this.gzip = gzip;
+            this.count = count;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return name + " " + raw + "B (gzip " + gzip + "B)";
+        }
+    }
+
+    /**
+     * The declaration which is written in several rules.
+     */
+    public static final class Duplicate {
+
+        /** The declaration text (e.g. "display:block"). */
+        public final String declaration;
+
+        /** The selectors of the declaring rules. */
+        public final List<String> selectors;
+
+        /**
+         * @param declaration
+         * @param selectors
+         */
+        private Duplicate(String declaration, List<String> selectors) {
+            this.declaration = declaration;
+            this.selectors = Collections.unmodifiableList(selectors);
+        }
+
+        /**
+         * Estimate the bytes which can be saved by sharing the declaration.
+         * 
+         * @return The byte size.
+         */
+        public long waste() {
+            return (long) (selectors.size() - 1) * (declaration.getBytes(StandardCharsets.UTF_8).length + 1);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return declaration + " " + selectors;
+        }
+    }
+}
\ No newline at end of file
@@ -84,6 +84,8 @@ public interface Style extends Consumer, Serializable {
      * @return A list of class names.
      */
     default String[] className() {
+        StyleUsage.record(this);
+
         String name = selector();
 
         return name.charAt(0) == '.' ? new String[] {name.substring(1)} : new String[0];
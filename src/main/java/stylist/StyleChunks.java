@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Splitter of the stylesheet into the chunk of each declaring class or user-defined group. The
+ * rules used by several groups, imports, animations and themes are written in the shared chunk.
+ */
+class StyleChunks {
+
+    /** The file name of the shared chunk. */
+    private static final String SharedChunk = "shared.css";
+
+    /** The formatter. */
+    private final Stylist formatter;
+
+    /** The user-defined chunk groups by the declaring class name or style. */
+    private final Map<Object, Set<String>> groups;
+
+    /**
+     * Build the splitter.
+     * 
+     * @param formatter A formatter.
+     * @param groups The user-defined chunk groups by the declaring class name or style.
+     */
+    StyleChunks(Stylist formatter, Map<Object, Set<String>> groups) {
+        this.formatter = formatter;
+        this.groups = groups;
+    }
+
+    /**
+     * Write out all managed styles into the chunk of each declaring class or user-defined group.
+     * 
+     * @param files The chunk files by file name.
+     * @return The chunk files to load by group.
+     */
+    Map<String, List<String>> split(Map<String, String> files) {
+        List<StyleRule> rules = formatter.rules(formatter.targets());
+        Map<String, StringBuilder> chunks = new TreeMap();
+        Map<String, Map<String, StringBuilder>> media = new HashMap();
+        StringBuilder shared = new StringBuilder();
+        Map<String, StringBuilder> sharedMedia = new LinkedHashMap();
+
+        formatter.formatHeader(shared);
+        for (StyleRule rule : rules) {
+            Set<String> assigned = groupOf(rule.style);
+
+            if (assigned.size() == 1) {
+                String group = assigned.iterator().next();
+                formatter.format(rule, chunks.computeIfAbsent(group, key -> new StringBuilder()), media
+                        .computeIfAbsent(group, key -> new LinkedHashMap()));
+            } else {
+                formatter.format(rule, shared, sharedMedia);
+
+                for (String group : assigned) {
+                    chunks.computeIfAbsent(group, key -> new StringBuilder());
+                }
+            }
+        }
+
+        formatter.writeMedia(sharedMedia, shared);
+        for (Map.Entry<String, Map<String, StringBuilder>> entry : media.entrySet()) {
+            formatter.writeMedia(entry.getValue(), chunks.get(entry.getKey()));
+        }
+
+        if (shared.length() != 0) {
+            files.put(SharedChunk, shared.toString());
+        }
+
+        // the shared chunk is always reserved, and the file names are compared case-insensitively
+        // because some file systems ignore the case
+        Set<String> used = new HashSet();
+        used.add(SharedChunk);
+
+        Map<String, List<String>> loads = new TreeMap();
+        for (Map.Entry<String, StringBuilder> chunk : chunks.entrySet()) {
+            List<String> load = new ArrayList();
+            if (shared.length() != 0) {
+                load.add(SharedChunk);
+            }
+
+            if (chunk.getValue().length() != 0) {
+                String name = chunk.getKey().replaceAll("[^\\w.\\-]", "_");
+                String file = name + ".css";
+
+                for (int i = 2; used.add(file.toLowerCase(Locale.ROOT)) == false; i++) {
+                    file = name + "-" + i + ".css";
+                }
+                files.put(file, chunk.getValue().toString());
+                load.add(file);
+            }
+            loads.put(chunk.getKey(), load);
+        }
+        return loads;
+    }
+
+    /**
+     * Compute the chunk groups of the specified {@link Style}.
+     * 
+     * @param style A target style.
+     * @return The assigned groups.
+     */
+    private Set<String> groupOf(Style style) {
+        Set<String> assigned = groups.get(style);
+
+        if (assigned == null) {
+            String declarer = declarer(style.detail());
+
+            assigned = groups.getOrDefault(declarer, Set.of(declarer));
+        }
+        return assigned;
+    }
+
+    /**
+     * Compute the declaring class name from the detail of style.
+     * 
+     * @param detail A detail of style.
+     * @return The declaring class name.
+     */
+    static String declarer(String detail) {
+        // the detail starts with the declaring class name like "package.Class#field"
+        int index = detail.indexOf('#');
+
+        return index == -1 ? "main" : detail.substring(0, index);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The JDK Flight Recorder events of the compilation and formatting phases. All events are
+ * disabled unless the recording enables them, and the disabled event never computes its payload.
+ */
+final class StyleEvents {
+
+    /**
+     * Hide constructor.
+     */
+    private StyleEvents() {
+    }
+
+    /**
+     * The class scanning of the style definitions.
+     */
+    @Name("stylist.Scan")
+    @Label("Style Scan")
+    @Category("Stylist")
+    @Description("Collect the styles of the style definition class")
+    static final class Scan extends Event {
+
+        @Label("Definition")
+        String definition;
+
+        @Label("Fields")
+        int fields;
+
+        @Label("Styles")
+        int styles;
+    }
+
+    /**
+     * The evaluation of the style rule.
+     */
+    @Name("stylist.Evaluate")
+    @Label("Style Evaluation")
+    @Category("Stylist")
+    @Description("Evaluate the style into the rule")
+    static final class Evaluate extends Event {
+
+        @Label("Style")
+        String style;
+
+        @Label("Selector")
+        String selector;
+
+        @Label("Nested")
+        boolean nested;
+
+        @Label("Declarations")
+        int declarations;
+
+        @Label("Children")
+        int children;
+    }
+
+    /**
+     * The post-processing of the properties.
+     */
+    @Name("stylist.PostProcess")
+    @Label("Post Processing")
+    @Category("Stylist")
+    @Description("Apply the post-processors and the built-in optimizations to the properties")
+    static final class PostProcess extends Event {
+
+        @Label("Processors")
+        int processors;
+
+        @Label("Declarations Before")
+        int before;
+
+        @Label("Declarations After")
+        int after;
+    }
+
+    /**
+     * The emission of the theme.
+     */
+    @Name("stylist.Theme")
+    @Label("Theme Emission")
+    @Category("Stylist")
+    @Description("Write the variables of the theme")
+    static final class Theme extends Event {
+
+        @Label("Theme")
+        String theme;
+
+        @Label("Variables")
+        int variables;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+    }
+
+    /**
+     * The output of the stylesheet file. The rules are formatted while they are streamed into the
+     * file, so the duration includes both formatting and writing.
+     */
+    @Name("stylist.Output")
+    @Label("Stylesheet Output")
+    @Category("Stylist")
+    @Description("Format and write the stylesheet to the output file")
+    static final class Output extends Event {
+
+        @Label("File")
+        String file;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+
+        @Label("Compressed Files")
+        int compressed;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import kiss.I;
+
+/**
+ * The build-time index of the style definitions. The index is the resource which lists the
+ * declaring classes of {@link StyleDeclarable} and their style fields, so the styles are found
+ * without scanning the classpath at runtime.
+ * <p>
+ * The index is generated from the compiled classes by {@link #write(Path)} (or the main method
+ * with the class output directory) after compilation. The style definitions which are not indexed
+ * (e.g. in the library built without the index) are still found by {@link I#findAs(Class)}.
+ */
+public final class StyleIndex {
+
+    /** The location of index resource. */
+    public static final String Location = "META-INF/stylist/styles";
+
+    /**
+     * Hide constructor.
+     */
+    private StyleIndex() {
+    }
+
+    /**
+     * Test whether the index is found on the classpath or not.
+     * 
+     * @return A result.
+     */
+    public static boolean isIndexed() {
+        return Lazy.index != null;
+    }
+
+    /**
+     * Get all style definitions. The indexed classes come first in the order of index, and the
+     * classes which are found by {@link I#findAs(Class)} but not indexed follow in the order of
+     * name. The definitions are collected only once.
+     * 
+     * @return The declaring classes.
+     */
+    public static List<Class> classes() {
+        return Lazy.classes;
+    }
+
+    /**
+     * Get the indexed style fields of the specified class.
+     * 
+     * @param definition A declaring class.
+     * @return The field names in declaration order, null if the class is not indexed.
+     */
+    static List<String> fields(Class definition) {
+        return Lazy.index == null ? null : Lazy.index.get(definition.getName());
+    }
+
+    /**
+     * Generate the index of all style definitions in the specified class output directory.
+     * 
+     * @param classes A class output directory.
+     * @return The generated index file.
+     */
+    public static Path write(Path classes) {
+        Map<String, List<String>> index = new LinkedHashMap();
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {classes.toUri().toURL()}, loader());
+                Stream<Path> files = Files.walk(classes)) {
+            for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+                String path = classes.relativize(file).toString().replace('\\', '/');
+
+                if (path.endsWith(".class") && path.endsWith("module-info.class") == false) {
+                    Class type = Class.forName(path.substring(0, path.length() - 6).replace('/', '.'), false, loader);
+
+                    if (StyleDeclarable.class.isAssignableFrom(type) && type.isInterface() == false && Modifier.isAbstract(type.getModifiers()) == false) {
+                        List<String> names = new ArrayList();
+                        for (Field field : type.getFields()) {
+                            Class fieldType = field.getType();
+
+                            if (Modifier.isStatic(field.getModifiers()) && (Style.class.isAssignableFrom(fieldType) || ValueStyle.class.isAssignableFrom(fieldType))) {
+                                names.add(field.getName());
+                            }
+                        }
+                        index.put(type.getName(), names);
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            throw I.quiet(e);
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, List<String>> entry : index.entrySet()) {
+            builder.append(entry.getKey());
+            for (String name : entry.getValue()) {
+                builder.append('\t').append(name);
+            }
+            builder.append('\n');
+        }
+
+        try {
+            Path file = classes.resolve(Location);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, builder);
+            return file;
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Generate the index at build time.
+     * 
+     * @param args The class output directory.
+     */
+    public static void main(String... args) {
+        write(Path.of(args.length == 0 ? "target/classes" : args[0]));
+    }
+
+    /**
+     * Read all index resources on the classpath.
+     * 
+     * @param loader The class loader to find resources.
+     * @return The style fields by class name, null if no index is found.
+     */
+    static Map<String, List<String>> read(ClassLoader loader) {
+        try {
+            Enumeration<URL> resources = loader.getResources(Location);
+
+            if (resources.hasMoreElements() == false) {
+                return null;
+            }
+
+            Map<String, List<String>> index = new LinkedHashMap();
+            while (resources.hasMoreElements()) {
+                try (InputStream input = resources.nextElement().openStream()) {
+                    for (String line : new String(input.readAllBytes(), StandardCharsets.UTF_8).split("\r?\n")) {
+                        if (line.isBlank() == false) {
+                            String[] values = line.split("\t");
+                            index.put(values[0], List.of(Arrays.copyOfRange(values, 1, values.length)));
+                        }
+                    }
+                }
+            }
+            return Collections.unmodifiableMap(index);
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Find the class loader to load the style definitions.
+     * 
+     * @return The class loader.
+     */
+    private static ClassLoader loader() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+
+        return loader == null ? StyleIndex.class.getClassLoader() : loader;
+    }
+
+    /**
+     * Collect all style definitions.
+     * 
+     * @param index The style fields by class name, null if no index is found.
+     * @return The declaring classes.
+     */
+    private static List<Class> collect(Map<String, List<String>> index) {
+        List<Class> classes = new ArrayList();
+
+        if (index != null) {
+            for (String name : index.keySet()) {
+                try {
+                    classes.add(Class.forName(name, false, loader()));
+                } catch (ClassNotFoundException e) {
+                    // the indexed class is removed, ignore it
+                }
+            }
+        }
+
+        List<Class> unindexed = new ArrayList();
+        for (Class definition : I.findAs(StyleDeclarable.class)) {
+            if (classes.contains(definition) == false) {
+                unindexed.add(definition);
+            }
+        }
+        unindexed.sort(Comparator.comparing(Class::getName));
+        classes.addAll(unindexed);
+
+        return Collections.unmodifiableList(classes);
+    }
+
+    /**
+     * The index is read at the first access.
+     */
+    private static class Lazy {
+
+        /** The style fields by class name, null if no index is found. */
+        private static final Map<String, List<String>> index = read(loader());
+
+        /** The declaring classes. */
+        private static final List<Class> classes = collect(index);
+    }
+}
\ No newline at end of file
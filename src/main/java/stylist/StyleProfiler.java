@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in profiler of the style evaluation. While profiling, every evaluation of {@link Style} and
+ * its nested rule in {@link StyleRule#create(Style)} records the elapsed time, the allocated bytes
+ * of the evaluating thread and the number of declarations. The root rule is keyed by
+ * {@link Style#detail()}, and the nested rule is keyed by the detail followed by its selector.
+ * <p>
+ * The time and the allocated bytes of the rule include its nested rules. The allocated bytes are
+ * always zero on the JVM which can't measure the allocation per thread.
+ */
+public final class StyleProfiler {
+
+    /** The profiling state. */
+    private static volatile boolean profiling;
+
+    /** The profiles by key. */
+    private static final Map<String, Profile> profiles = new ConcurrentHashMap();
+
+    /** The allocation counter, null if it is not supported or profiling has never started. */
+    private static volatile com.sun.management.ThreadMXBean allocation;
+
+    /** The allocation measurement state before profiling. */
+    private static boolean measured;
+
+    /**
+     * Hide constructor.
+     */
+    private StyleProfiler() {
+    }
+
+    /**
+     * Start profiling. The allocation measurement of the JVM is enabled only while profiling.
+     */
+    public static synchronized void start() {
+        if (profiling == false) {
+            allocation = allocation();
+
+            if (allocation != null) {
+                measured = allocation.isThreadAllocatedMemoryEnabled();
+                allocation.setThreadAllocatedMemoryEnabled(true);
+            }
+            profiling = true;
+        }
+    }
+
+    /**
+     * Stop profiling. The recorded profiles are kept, and the allocation measurement of the JVM is
+     * restored.
+     */
+    public static synchronized void stop() {
+        if (profiling) {
+            profiling = false;
+
+            if (allocation != null) {
+                allocation.setThreadAllocatedMemoryEnabled(measured);
+            }
+        }
+    }
+
+    /**
+     * Discard all recorded profiles.
+     */
+    public static void reset() {
+        profiles.clear();
+    }
+
+    /**
+     * Test whether the style evaluation is being profiled or not.
+     * 
+     * @return A result.
+     */
+    public static boolean isProfiling() {
+        return profiling;
+    }
+
+    /**
+     * Get the profile of the specified key.
+     * 
+     * @param key A {@link Style#detail()} or the detail followed by the selector of nested rule.
+     * @return The profile, null if it is not recorded.
+     */
+    public static Profile profile(String key) {
+        return profiles.get(key);
+    }
+
+    /**
+     * Get the profile of the specified {@link Style}.
+     * 
+     * @param style A target style.
+     * @return The profile, null if it is not recorded.
+     */
+    public static Profile profile(Style style) {
+        return profile(style.detail());
+    }
+
+    /**
+     * List up all recorded profiles. The slowest profile comes first.
+     * 
+     * @return The sorted profiles.
+     */
+    public static List<Profile> profiles() {
+        List<Profile> sorted = new ArrayList(profiles.values());
+        sorted.sort(Comparator.comparingLong((Profile profile) -> profile.time.sum())
+                .reversed()
+                .thenComparing(Comparator.comparingLong((Profile profile) -> profile.allocated.sum()).reversed())
+                .thenComparing(profile -> profile.key));
+
+        return sorted;
+    }
+
+    /**
+     * Build the profile report. Each line consists of the elapsed time in microseconds, the
+     * allocated bytes, the number of declarations, the number of evaluations and the key separated
+     * by tab, and the slowest profile comes first.
+     * 
+     * @return A report.
+     */
+    public static String report() {
+        StringBuilder builder = new StringBuilder();
+        for (Profile profile : profiles()) {
+            builder.append(profile.time().toNanos() / 1000)
+                    .append('\t')
+                    .append(profile.allocated())
+                    .append('\t')
+                    .append(profile.declarations())
+                    .append('\t')
+                    .append(profile.count())
+                    .append('\t')
+                    .append(profile.key)
+                    .append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Take the sample before the evaluation.
+     * 
+     * @return The elapsed time and the allocated bytes, null if the profiler is stopped.
+     */
+    static long[] begin() {
+        return profiling ? new long[] {System.nanoTime(), allocated()} : null;
+    }
+
+    /**
+     * Record the evaluation which is started by {@link #begin()}.
+     * 
+     * @param sample The sample before the evaluation.
+     * @param rule The evaluated rule.
+     * @param root Whether the evaluated rule is root or nested.
+     */
+    static void end(long[] sample, StyleRule rule, boolean root) {
+        if (sample != null) {
+            long time = System.nanoTime() - sample[0];
+            long allocated = allocated() - sample[1];
+
+            Profile profile = profiles.computeIfAbsent(root ? rule.description : rule.description + " " + rule.selector, Profile::new);
+            profile.count.increment();
+            profile.time.add(time);
+            profile.allocated.add(Math.max(0, allocated));
+            profile.declarations.add(rule.properties.size());
+        }
+    }
+
+    /**
+     * Get the allocated bytes of the current thread.
+     * 
+     * @return The allocated bytes, zero if it is not supported.
+     */
+    private static long allocated() {
+        return allocation == null ? 0 : allocation.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Find the allocation counter.
+     * 
+     * @return The allocation counter, null if it is not supported.
+     */
+    private static com.sun.management.ThreadMXBean allocation() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) bean;
+
+                if (counter.isThreadAllocatedMemorySupported()) {
+                    return counter;
+                }
+            }
+        } catch (Throwable e) {
+            // unsupported
+        }
+        return null;
+    }
+
+    /**
+     * The aggregated profile of the style or its nested rule.
+     */
+    public static final class Profile {
+
+        /** The key. */
+        public final String key;
+
+        /** The number of evaluations. */
+        private final LongAdder count = new LongAdder();
+
+        /** The elapsed time in nanoseconds. */
+        private final LongAdder time = new LongAdder();
+
+        /** The allocated bytes. */
+        private final LongAdder allocated = new LongAdder();
+
+        /** The number of declarations. */
+        private final LongAdder declarations = new LongAdder();
+
+        /**
+         * @param key
+         */
+        private Profile(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Get the number of evaluations.
+         * 
+         * @return The number of evaluations.
+         */
+        public long count() {
+            return count.sum();
+        }
+
+        /**
+         * Get the total elapsed time.
+         * 
+         * @return The elapsed time.
+         */
+        public Duration time() {
+            return Duration.ofNanos(time.sum());
+        }
+
+        /**
+         * Get the total allocated bytes.
+         * 
+         * @return The allocated bytes.
+         */
+        public long allocated() {
+            return allocated.sum();
+        }
+
+        /**
+         * Get the total number of declarations.
+         * 
+         * @return The number of declarations.
+         */
+        public long declarations() {
+            return declarations.sum();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return key + "[count=" + count() + ", time=" + time() + ", allocated=" + allocated() + ", declarations=" + declarations() + "]";
+        }
+    }
+}
\ No newline at end of file
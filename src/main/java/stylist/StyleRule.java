@@ -10,40 +10,90 @@
 package stylist;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 /**
  * This class is CSSStyleRule which represents a single CSS style rule.
  */
 public class StyleRule implements Comparable<StyleRule> {
 
+    /** The memoized snapshots. */
+    private static final Map<Style, StyleRule> snapshots = new ConcurrentHashMap();
+
     /** The selector. */
     public final CSSValue selector;
 
     /** The description. */
     public final String description;
 
+    /** The media query condition, null means the unconditional rule. */
+    public final String media;
+
     /** The internal selector. */
     private final SelectorDSL internal;
 
+    /** The original style. */
+    final Style style;
+
     /** The property list. */
     public final Properties properties;
 
-    /** The sub rules. */
-    public final ArrayList<StyleRule> children = new ArrayList();
+    /** The sub rules, they can't be modified in the snapshot. */
+    public final ArrayList<StyleRule> children = new Children();
 
     /**
      * Define style rule.
      * 
      * @param name An actual selector.
      * @param description A description of style.
+     * @param media A media query condition.
+     * @param style An original style.
      */
-    private StyleRule(SelectorDSL selector, String description) {
+    private StyleRule(SelectorDSL selector, String description, String media, Style style) {
         this.selector = selector.selector();
         this.description = description;
+        this.media = media;
         this.internal = selector;
+        this.style = style;
         this.properties = new Properties();
     }
 
+    /**
+     * Rebuild the finished style rule.
+     * 
+     * @param selector An actual selector.
+     * @param description A description of style.
+     * @param media A media query condition.
+     * @param style An original style.
+     * @param properties A property list.
+     */
+    StyleRule(CSSValue selector, String description, String media, Style style, Properties properties) {
+        this.selector = selector;
+        this.description = description;
+        this.media = media;
+        this.internal = null;
+        this.style = style;
+        this.properties = properties;
+    }
+
+    /**
+     * Flatten this rule tree into the compact form to retain it for a long time.
+     * 
+     * @return The compact form.
+     */
+    public CompactRule compact() {
+        return new CompactRule(this);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -71,15 +121,74 @@ public class StyleRule implements Comparable<StyleRule> {
     }
 
     /**
-     * Create {@link StyleRule} from the specified {@link Style}.
+     * Get the memoized snapshot of the specified {@link Style}. The style is evaluated only once
+     * until it is invalidated, and the properties of snapshot are frozen, so the snapshot can be
+     * shared by all threads and all formatters.
+     * 
+     * @param style A style description.
+     * @return The shared {@link StyleRule}.
+     */
+    public static StyleRule snapshot(Style style) {
+        StyleRule snapshot = snapshots.get(style);
+
+        if (snapshot == null) {
+            // The evaluation of style may take the other snapshot, so it must be evaluated outside
+            // of the map operation.
+            StyleRule created = freeze(create(style));
+
+            snapshot = snapshots.putIfAbsent(style, created);
+            if (snapshot == null) {
+                snapshot = created;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Discard the memoized snapshot of the specified {@link Style}. The dynamic style must be
+     * invalidated when its declaration is changed.
+     * 
+     * @param style A style to invalidate.
+     */
+    public static void invalidate(Style style) {
+        snapshots.remove(style);
+    }
+
+    /**
+     * Discard all memoized snapshots.
+     */
+    public static void invalidateAll() {
+        snapshots.clear();
+    }
+
+    /**
+     * Freeze the properties of the specified rule and all its descendants.
+     * 
+     * @param rule A rule to freeze.
+     * @return The frozen rule.
+     */
+    private static StyleRule freeze(StyleRule rule) {
+        rule.properties.freeze();
+        ((Children) rule.children).frozen = true;
+
+        for (StyleRule child : rule.children) {
+            freeze(child);
+        }
+        return rule;
+    }
+
+    /**
+     * Create {@link StyleRule} from the specified {@link Style}. The evaluation context is confined
+     * to the current thread, so this method can be called concurrently.
      * 
      * @param style A style description.
      * @return A create new {@link StyleRule}.
      */
-    static synchronized StyleRule create(Style style, SelectorDSL selector) {
+    static StyleRule create(Style style, SelectorDSL selector) {
         // store parent rule
-        StyleRule parent = PropertyDefinition.rule;
+        StyleRule parent = PropertyDefinition.rule();
         String description;
+        String media = selector.media();
 
         if (parent == null) {
             selector.selector = style.selector();
@@ -87,15 +196,37 @@ public class StyleRule implements Comparable<StyleRule> {
         } else {
             selector.replace(parent.internal);
             description = parent.description;
+
+            // the nested condition narrows the enclosing condition
+            if (parent.media != null) {
+                media = media == null ? parent.media : narrow(parent.media, media);
+            }
         }
 
         // create child rule
-        StyleRule child = new StyleRule(selector, description);
+        StyleRule child = new StyleRule(selector, description, media, style);
 
         // swap context rule and execute it
-        PropertyDefinition.rule = child;
-        style.style();
-        PropertyDefinition.rule = parent;
+        StyleEvents.Evaluate event = new StyleEvents.Evaluate();
+        event.begin();
+        long[] sample = StyleProfiler.begin();
+        PropertyDefinition.swap(child);
+        try {
+            style.style();
+        } finally {
+            PropertyDefinition.swap(parent);
+        }
+        StyleProfiler.end(sample, child, parent == null);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.style = description;
+            event.selector = child.selector.toString();
+            event.nested = parent != null;
+            event.declarations = child.properties.size();
+            event.children = child.children.size();
+            event.commit();
+        }
 
         if (parent != null) {
             parent.children.add(child);
@@ -104,4 +235,272 @@ public class StyleRule implements Comparable<StyleRule> {
         // API definition
         return child;
     }
+
+    /**
+     * Combine the enclosing media query list and the nested media query list by "and". Because the
+     * comma means "or", "and" is distributed over each query of both lists.
+     * 
+     * @param outer The enclosing media query list.
+     * @param inner The nested media query list.
+     * @return The combined media query list.
+     * @throws IllegalArgumentException The queries can't be combined.
+     */
+    static String narrow(String outer, String inner) {
+        StringJoiner joiner = new StringJoiner(", ");
+
+        for (String one : split(outer)) {
+            for (String other : split(inner)) {
+                joiner.add(narrowQuery(one, other));
+            }
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Combine the media queries by "and".
+     * 
+     * @param outer The enclosing media query.
+     * @param inner The nested media query.
+     * @return The combined media query.
+     * @throws IllegalArgumentException The queries can't be combined.
+     */
+    private static String narrowQuery(String outer, String inner) {
+        String[] one = typeAndFeatures(outer);
+        String[] other = typeAndFeatures(inner);
+        String type = one[0];
+
+        if (other[0] != null) {
+            String outerType = type == null ? "all" : bare(type);
+            String innerType = bare(other[0]);
+
+            if (outerType.equals("all")) {
+                type = other[0];
+            } else if (innerType.equals("all") == false && innerType.equals(outerType) == false) {
+                throw new IllegalArgumentException("Media type [" + inner + "] never matches in [" + outer + "].");
+            }
+        }
+
+        StringJoiner joiner = new StringJoiner(" and ");
+        if (type != null) {
+            joiner.add(type);
+        }
+        if (one[1] != null) {
+            joiner.add(one[1]);
+        }
+        if (other[1] != null) {
+            joiner.add(other[1]);
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Split the media query into the media type and the media features.
+     * 
+     * @param query A media query.
+     * @return The media type (or null) and the media features (or null).
+     * @throws IllegalArgumentException The negated query can't be combined.
+     */
+    private static String[] typeAndFeatures(String query) {
+        if (query.regionMatches(true, 0, "not ", 0, 4)) {
+            throw new IllegalArgumentException("Negated media query [" + query + "] can't be combined with the other query.");
+        }
+
+        if (query.startsWith("(")) {
+            return new String[] {null, query};
+        }
+
+        String[] parts = query.split("(?i)\\s+and\\s+", 2);
+        return new String[] {parts[0], parts.length == 1 ? null : parts[1]};
+    }
+
+    /**
+     * Normalize the media type.
+     * 
+     * @param type A media type.
+     * @return The lower-case media type without "only".
+     */
+    private static String bare(String type) {
+        return type.replaceFirst("(?i)^only\\s+", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Split the media query list by the comma which is not in the parentheses.
+     * 
+     * @param list A media query list.
+     * @return The media queries.
+     */
+    private static List<String> split(String list) {
+        List<String> queries = new ArrayList();
+        int depth = 0;
+        int start = 0;
+
+        for (int i = 0; i < list.length(); i++) {
+            char c = list.charAt(i);
+
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                queries.add(list.substring(start, i).strip());
+                start = i + 1;
+            }
+        }
+        queries.add(list.substring(start).strip());
+
+        return queries;
+    }
+
+    /**
+     * The sub rule list which rejects any modification after it is frozen.
+     */
+    @SuppressWarnings("serial")
+    private static final class Children extends ArrayList<StyleRule> {
+
+        /** The frozen list rejects any modification. */
+        private boolean frozen;
+
+        /**
+         * Check whether this list can be modified or not.
+         */
+        private void modify() {
+            if (frozen) {
+                throw new UnsupportedOperationException("The children of snapshot can't be modified.");
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean add(StyleRule rule) {
+            modify();
+            return super.add(rule);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void add(int index, StyleRule rule) {
+            modify();
+            super.add(index, rule);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean addAll(Collection<? extends StyleRule> rules) {
+            modify();
+            return super.addAll(rules);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean addAll(int index, Collection<? extends StyleRule> rules) {
+            modify();
+            return super.addAll(index, rules);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public StyleRule set(int index, StyleRule rule) {
+            modify();
+            return super.set(index, rule);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public StyleRule remove(int index) {
+            modify();
+            return super.remove(index);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean remove(Object rule) {
+            modify();
+            return super.remove(rule);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean removeAll(Collection<?> rules) {
+            modify();
+            return super.removeAll(rules);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean retainAll(Collection<?> rules) {
+            modify();
+            return super.retainAll(rules);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean removeIf(Predicate<? super StyleRule> filter) {
+            modify();
+            return super.removeIf(filter);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void removeRange(int from, int to) {
+            modify();
+            super.removeRange(from, to);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void replaceAll(UnaryOperator<StyleRule> operator) {
+            modify();
+            super.replaceAll(operator);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void sort(Comparator<? super StyleRule> comparator) {
+            modify();
+            super.sort(comparator);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void clear() {
+            modify();
+            super.clear();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public List<StyleRule> subList(int from, int to) {
+            return frozen ? Collections.unmodifiableList(super.subList(from, to)) : super.subList(from, to);
+        }
+    }
 }
\ No newline at end of file
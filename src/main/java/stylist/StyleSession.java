@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import kiss.I;
+import stylist.FragmentCache.Fragment;
+
+/**
+ * Incremental compilation session. The session remembers the formatted text of every compiled
+ * {@link Style} for each declaring class, and re-evaluates only the classes or styles which are
+ * updated explicitly. All other fragments are reused as they are.
+ */
+public final class StyleSession {
+
+    /** The associated formatter. */
+    private final Stylist formatter;
+
+    /** The styles of each declaring class. */
+    private final Map<Class, List<Style>> declarations = new LinkedHashMap();
+
+    /** The compiled fragments of each style. */
+    private final Map<Style, Fragment> fragments = new HashMap();
+
+    /** The compiled fragments in output order. */
+    private final ArrayList<Fragment> ordered = new ArrayList();
+
+    /**
+     * Create session.
+     * 
+     * @param formatter The associated formatter.
+     */
+    StyleSession(Stylist formatter) {
+        this.formatter = formatter;
+    }
+
+    /**
+     * Compile the specified style definitions. If the definition has already been compiled, all
+     * styles in it are re-evaluated.
+     * 
+     * @param definitions The style definitions.
+     * @return Chainable API.
+     */
+    public synchronized StyleSession update(Class... definitions) {
+        for (Class definition : definitions) {
+            List<Style> previous = declarations.remove(definition);
+            if (previous != null) {
+                for (Style style : previous) {
+                    remove(style);
+                }
+            }
+
+            List<Style> styles = Stylist.declared(definition);
+            declarations.put(definition, styles);
+
+            for (Style style : styles) {
+                compile(style);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Compile the specified styles. If the style has already been compiled, it is re-evaluated.
+     * 
+     * @param styles The style definitions.
+     * @return Chainable API.
+     */
+    public synchronized StyleSession update(Style... styles) {
+        for (Style style : styles) {
+            compile(style);
+        }
+        return this;
+    }
+
+    /**
+     * Remove the specified style definitions from this session.
+     * 
+     * @param definitions The style definitions.
+     * @return Chainable API.
+     */
+    public synchronized StyleSession remove(Class... definitions) {
+        for (Class definition : definitions) {
+            List<Style> styles = declarations.remove(definition);
+
+            if (styles != null) {
+                for (Style style : styles) {
+                    remove(style);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Write out all compiled styles.
+     * 
+     * @return A stylesheet representation.
+     */
+    public synchronized String format() {
+        StringBuilder builder = new StringBuilder();
+        write(builder);
+
+        return builder.toString();
+    }
+
+    /**
+     * Write out all compiled styles.
+     * 
+     * @param output A style output buffer.
+     */
+    public synchronized void formatTo(Appendable output) {
+        try {
+            write(output);
+        } finally {
+            I.quiet(output);
+        }
+    }
+
+    /**
+     * Write out all compiled styles.
+     * 
+     * @param output A style output buffer.
+     */
+    private void write(Appendable output) {
+        formatter.formatHeader(output);
+
+        Map<String, StringBuilder> media = new LinkedHashMap();
+        for (Fragment fragment : ordered) {
+            formatter.append(fragment, output, media);
+        }
+        formatter.writeMedia(media, output);
+    }
+
+    /**
+     * Evaluate the specified style and splice it into the output order.
+     * 
+     * @param style A target style.
+     */
+    private void compile(Style style) {
+        remove(style);
+
+        StyleRule rule = StyleRule.create(style);
+        Fragment fragment = formatter.fragment(rule);
+        fragments.put(style, fragment);
+
+        // The full build sorts rules by description stably, so the new fragment is placed after
+        // all fragments with the same description.
+        int low = 0;
+        int high = ordered.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (fragment.description.compareTo(ordered.get(middle).description) < 0) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        ordered.add(low, fragment);
+    }
+
+    /**
+     * Remove the compiled fragment of the specified style.
+     * 
+     * @param style A target style.
+     */
+    private void remove(Style style) {
+        StyleRule.invalidate(style);
+        formatter.invalidate(style);
+
+        Fragment fragment = fragments.remove(style);
+
+        if (fragment != null) {
+            ordered.remove(fragment);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime usage tracker of {@link Style}. While tracking, every call of {@link Style#className()}
+ * is counted by the striped counter of the style. {@link Style#selector()} is not counted because
+ * stylist itself calls it to build the stylesheet.
+ */
+public final class StyleUsage {
+
+    /** The tracking state. */
+    private static volatile boolean tracking;
+
+    /** The usage counters. */
+    private static final Map<Style, LongAdder> counters = new ConcurrentHashMap();
+
+    /**
+     * Hide constructor.
+     */
+    private StyleUsage() {
+    }
+
+    /**
+     * Start tracking.
+     */
+    public static void start() {
+        tracking = true;
+    }
+
+    /**
+     * Stop tracking. The recorded usage is kept.
+     */
+    public static void stop() {
+        tracking = false;
+    }
+
+    /**
+     * Discard all recorded usage.
+     */
+    public static void reset() {
+        counters.clear();
+    }
+
+    /**
+     * Test whether the usage is being tracked or not.
+     * 
+     * @return A result.
+     */
+    public static boolean isTracking() {
+        return tracking;
+    }
+
+    /**
+     * Get the number of usage of the specified {@link Style}.
+     * 
+     * @param style A target style.
+     * @return The number of usage.
+     */
+    public static long count(Style style) {
+        LongAdder counter = counters.get(style);
+
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Test whether the specified {@link Style} has been used or not.
+     * 
+     * @param style A target style.
+     * @return A result.
+     */
+    public static boolean isUsed(Style style) {
+        return counters.containsKey(style);
+    }
+
+    /**
+     * List up all registered styles which have never been used.
+     * 
+     * @return The unused styles ordered by {@link Style#detail()}.
+     */
+    public static List<Style> unused() {
+        List<Style> unused = new ArrayList();
+
+        for (Style style : Stylist.registered()) {
+            if (isUsed(style) == false) {
+                unused.add(style);
+            }
+        }
+        unused.sort(Comparator.comparing(Style::detail));
+
+        return unused;
+    }
+
+    /**
+     * Build the usage report of all registered styles. Each line consists of the number of usage,
+     * the selector and the detail of style separated by tab, and the most used style comes first.
+     * 
+     * @return A report.
+     */
+    public static String report() {
+        List<Style> styles = new ArrayList(Stylist.registered());
+        styles.sort(Comparator.comparingLong(StyleUsage::count).reversed().thenComparing(Style::detail));
+
+        StringBuilder builder = new StringBuilder();
+        for (Style style : styles) {
+            builder.append(count(style)).append('\t').append(style.selector()).append('\t').append(style.detail()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Record the usage of the specified {@link Style}.
+     * 
+     * @param style A used style.
+     */
+    static void record(Style style) {
+        if (tracking) {
+            counters.computeIfAbsent(style, key -> new LongAdder()).increment();
+        }
+    }
+}
\ No newline at end of file
@@ -18,21 +18,34 @@ import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import kiss.I;
+import stylist.FragmentCache.Fragment;
+import stylist.SelectorGrouping.Group;
 import stylist.design.DesignScheme;
 import stylist.design.DesignScheme.DefinedTheme;
 import stylist.value.Color;
@@ -78,6 +91,42 @@ public final class Stylist {
     /** The format style. */
     private boolean showEmptyStyle = false;
 
+    /** The optimization. */
+    private boolean groupSelector = false;
+
+    /** The optimization. */
+    private boolean shorthand = false;
+
+    /** The optimization. */
+    private boolean pruneUnused = false;
+
+    /** The target vendors which require the vendor-prefixed properties. */
+    private EnumSet<Vendor> vendors = EnumSet.noneOf(Vendor.class);
+
+    /** The compiled decorations, null means that the decoration is updated. */
+    private Emitter emitter;
+
+    /** The formatted text cache. */
+    private FragmentCache cache;
+
+    /** The configuration which affects the formatted text, null means that it is updated. */
+    private List profile;
+
+    /** The compression of the output file. */
+    private Precompression precompression;
+
+    /** The output file name contains the content hash. */
+    private boolean hashFileName;
+
+    /** The size limits of the stylesheet. */
+    private SizeBudget budget;
+
+    /** Use the memoized snapshot of style. */
+    private boolean memoize;
+
+    /** The executor for parallel formatting. */
+    private ForkJoinPool pool;
+
     /** The manager of post processors. */
     private final List<Consumer<Properties>> posts = new ArrayList();
 
@@ -87,6 +136,9 @@ public final class Stylist {
     /** The target styles. */
     private final Set<Style> styles = new HashSet();
 
+    /** The user-defined chunk groups by the declaring class name or style. */
+    private final Map<Object, Set<String>> groups = new HashMap();
+
     /** The user scheme. */
     private DesignScheme scheme;
 
@@ -111,6 +163,8 @@ public final class Stylist {
         if (after != null) {
             this.afterSelector = after;
         }
+        this.emitter = null;
+        this.profile = null;
         return this;
     }
 
@@ -124,6 +178,8 @@ public final class Stylist {
         if (after != null) {
             this.afterStartBrace = after;
         }
+        this.emitter = null;
+        this.profile = null;
         return this;
     }
 
@@ -142,6 +198,8 @@ public final class Stylist {
         if (after != null) {
             this.afterEndBrace = after;
         }
+        this.emitter = null;
+        this.profile = null;
         return this;
     }
 
@@ -160,6 +218,8 @@ public final class Stylist {
         if (after != null) {
             this.afterPropertyName = after;
         }
+        this.emitter = null;
+        this.profile = null;
         return this;
     }
 
@@ -178,6 +238,8 @@ public final class Stylist {
         if (after != null) {
             this.afterPropertyValue = after;
         }
+        this.emitter = null;
+        this.profile = null;
         return this;
     }
 
@@ -191,6 +253,8 @@ public final class Stylist {
         if (after != null) {
             this.afterPropertyLine = after;
         }
+        this.emitter = null;
+        this.profile = null;
         return this;
     }
 
@@ -212,6 +276,7 @@ public final class Stylist {
     public Stylist color(Function<Color, String> writer) {
         if (writer != null) {
             this.color = writer;
+            this.profile = null;
         }
         return this;
     }
@@ -224,6 +289,7 @@ public final class Stylist {
      */
     public Stylist comment(boolean comment) {
         this.comment = comment;
+        this.profile = null;
         return this;
     }
 
@@ -235,6 +301,155 @@ public final class Stylist {
      */
     public Stylist showEmptyStyle(boolean showEmptyStyle) {
         this.showEmptyStyle = showEmptyStyle;
+        this.profile = null;
+        return this;
+    }
+
+    /**
+     * Merge the rules with the identical declaration block into one rule with the selector list
+     * when it doesn't change the cascade order. Because all rules must be formatted before
+     * writing, the cache and parallel formatting are not used in this mode.
+     * 
+     * @param groupSelector
+     * @return
+     */
+    public Stylist groupSelector(boolean groupSelector) {
+        this.groupSelector = groupSelector;
+        return this;
+    }
+
+    /**
+     * Collapse the longhand properties (e.g. margin-top, margin-right...) into the shortest
+     * equivalent shorthand property when all of them are declared in the same rule.
+     * 
+     * @param shorthand
+     * @return
+     */
+    public Stylist shorthand(boolean shorthand) {
+        this.shorthand = shorthand;
+        this.profile = null;
+        return this;
+    }
+
+    /**
+     * Specify the target vendors. Each declaration is expanded into the vendor-prefixed variants
+     * which the target vendors require, and they are written before the standard declaration.
+     * {@link Vendor#Safari} and {@link Vendor#Webkit} share the same prefix, so they are treated as
+     * one target. No vendor is targeted by default.
+     * 
+     * @param vendors The target vendors.
+     * @return Chainable API.
+     */
+    public Stylist vendors(Vendor... vendors) {
+        EnumSet<Vendor> targets = EnumSet.noneOf(Vendor.class);
+
+        for (Vendor vendor : vendors) {
+            if (vendor == Vendor.Safari || vendor == Vendor.Webkit) {
+                targets.add(Vendor.Safari);
+                targets.add(Vendor.Webkit);
+            } else if (vendor != null && vendor != Vendor.Standard) {
+                targets.add(vendor);
+            }
+        }
+        this.vendors = targets;
+        this.profile = null;
+        return this;
+    }
+
+    /**
+     * Write out only the styles which have been used while {@link StyleUsage} is tracking.
+     * 
+     * @param pruneUnused
+     * @return
+     */
+    public Stylist pruneUnused(boolean pruneUnused) {
+        this.pruneUnused = pruneUnused;
+        return this;
+    }
+
+    /**
+     * Reuse the formatted text of rules by the specified cache. The cache can be shared with other
+     * formatters.
+     * 
+     * @param cache A cache to use, null disables cache.
+     * @return Chainable API.
+     */
+    public Stylist cache(FragmentCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Write the compressed variants alongside the output file in the same pass when the stylesheet
+     * is written to the file.
+     * 
+     * @param precompression A compression configuration, null disables compression.
+     * @return Chainable API.
+     */
+    public Stylist precompress(Precompression precompression) {
+        this.precompression = precompression;
+        return this;
+    }
+
+    /**
+     * Use the memoized snapshot of each style instead of evaluating it on every formatting. The
+     * dynamic style must be invalidated by {@link StyleRule#invalidate(Style)} when its declaration
+     * is changed.
+     * 
+     * @param memoize
+     * @return Chainable API.
+     * @see StyleRule#snapshot(Style)
+     */
+    public Stylist memoize(boolean memoize) {
+        this.memoize = memoize;
+        return this;
+    }
+
+    /**
+     * Check the size of stylesheet by the specified budget when the size report is built.
+     * 
+     * @param budget A size budget, null disables the check.
+     * @return Chainable API.
+     * @see #report()
+     */
+    public Stylist budget(SizeBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * Write the output file with the content hash in its name (e.g. style.0123456789abcdef.css)
+     * and register it to the asset manifest (assets.json) in the same directory, so the file can
+     * be cached forever. The file with the same hash is never rewritten.
+     * 
+     * @param hashFileName
+     * @return Chainable API.
+     */
+    public Stylist hashFileName(boolean hashFileName) {
+        this.hashFileName = hashFileName;
+        return this;
+    }
+
+    /**
+     * Format rules in parallel on the common pool. The output is identical to the sequential
+     * formatting. All post-processors must be thread-safe.
+     * 
+     * @param parallel True enables parallel formatting.
+     * @return Chainable API.
+     */
+    public Stylist parallel(boolean parallel) {
+        return parallel(parallel ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * Format rules in parallel on the specified pool. The output is identical to the sequential
+     * formatting. All post-processors must be thread-safe.
+     * 
+     * @param pool A pool to use, null disables parallel formatting.
+     * @return Chainable API.
+     */
+    public Stylist parallel(ForkJoinPool pool) {
+        this.pool = pool;
         return this;
     }
 
@@ -247,6 +462,7 @@ public final class Stylist {
     public Stylist postProcessor(Consumer<Properties> processor) {
         if (processor != null) {
             posts.add(processor);
+            this.profile = null;
         }
         return this;
     }
@@ -302,7 +518,7 @@ public final class Stylist {
      * @return Chainable API.
      */
     public final Stylist styles(List<Class<StyleDeclarable>> definitions) {
-        I.signal(definitions).flatIterable(Stylist::styles).toCollection(styles);
+        I.signal(definitions).flatIterable(Stylist::declared).toCollection(styles);
         return this;
     }
 
@@ -313,7 +529,7 @@ public final class Stylist {
      * @return Chainable API.
      */
     public final Stylist styles(Class... definitions) {
-        I.signal(definitions).flatIterable(Stylist::styles).toCollection(styles);
+        I.signal(definitions).flatIterable(Stylist::declared).toCollection(styles);
         return this;
     }
 
@@ -324,7 +540,7 @@ public final class Stylist {
      * @return Chainable API.
      */
     public final Stylist styles(StyleDeclarable... definitions) {
-        I.signal(definitions).flatIterable(Stylist::styles).toCollection(styles);
+        I.signal(definitions).flatIterable(Stylist::declared).toCollection(styles);
         return this;
     }
 
@@ -341,13 +557,60 @@ public final class Stylist {
         return this;
     }
 
+    /**
+     * Assign all styles in the specified style definitions to the user-defined chunk group instead
+     * of the chunk of the declaring class. The style assigned to several groups is written in the
+     * shared chunk.
+     * 
+     * @param group A group name.
+     * @param definitions The style definitions.
+     * @return Chainable API.
+     */
+    public final Stylist chunk(String group, Class... definitions) {
+        if (group != null) {
+            for (Class definition : definitions) {
+                groups.computeIfAbsent(definition.getCanonicalName(), key -> new TreeSet()).add(group);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Assign the specified styles to the user-defined chunk group instead of the chunk of the
+     * declaring class. The style assigned to several groups is written in the shared chunk.
+     * 
+     * @param group A group name.
+     * @param styles The style definitions.
+     * @return Chainable API.
+     */
+    public final Stylist chunk(String group, Style... styles) {
+        if (group != null) {
+            for (Style style : styles) {
+                groups.computeIfAbsent(style, key -> new TreeSet()).add(group);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Create the incremental compilation session which uses this formatter.
+     * 
+     * @return A new session.
+     */
+    public final StyleSession session() {
+        return new StyleSession(this);
+    }
+
     /**
      * Write out all managed styles.
      * 
      * @return
      */
     public final String format() {
-        return format(styles.isEmpty() ? I.signal(id.keySet()).as(Style.class).toList() : styles);
+        StringBuilder builder = new StringBuilder();
+        format(targets(), builder);
+
+        return builder.toString();
     }
 
     /**
@@ -361,229 +624,1110 @@ public final class Stylist {
     }
 
     /**
-     * Write out all managed styles.
+     * Write out all managed styles. The stylesheet is encoded as UTF-8 and written to the file
+     * channel directly. The compressed variants are also written if {@link Precompression} is
+     * specified.
      * 
      * @param output A style output buffer.
      * @return
      */
     public final Path formatTo(Path output) {
+        return write(output, writer -> format(targets(), writer));
+    }
+
+    /**
+     * Write the output file.
+     * 
+     * @param output A logical output file.
+     * @param content A content writer.
+     * @return The actual output file.
+     */
+    private Path write(Path output, Consumer<Appendable> content) {
+        StyleEvents.Output event = new StyleEvents.Output();
+        event.begin();
+
+        Path written = store(output, content);
+
+        event.end();
+        if (event.shouldCommit()) {
+            try {
+                event.file = written.toString();
+                event.bytes = Files.size(written);
+                for (String suffix : List.of(".gz", ".deflate")) {
+                    if (Files.exists(written.resolveSibling(written.getFileName() + suffix))) {
+                        event.compressed++;
+                    }
+                }
+                event.commit();
+            } catch (IOException e) {
+                throw I.quiet(e);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Store the output file. When the file name is hashed, the content is stored by
+     * {@link HashedOutput}.
+     * 
+     * @param output A logical output file.
+     * @param content A content writer.
+     * @return The actual output file.
+     */
+    private Path store(Path output, Consumer<Appendable> content) {
         try {
             if (Files.notExists(output)) {
                 Files.createDirectories(output.getParent());
             }
-            formatTo(Files.newBufferedWriter(output, StandardCharsets.UTF_8));
+
+            if (hashFileName) {
+                return HashedOutput.store(output, precompression, content);
+            }
+
+            try (ChannelWriter writer = new ChannelWriter(output, precompression)) {
+                content.accept(writer);
+            }
+            return output;
         } catch (IOException e) {
             throw I.quiet(e);
         }
-        return output;
     }
 
     /**
-     * Write out all managed styles.
+     * Write the output file.
+     * 
+     * @param output A logical output file.
+     * @param text A content.
+     * @return The actual output file.
+     */
+    private Path write(Path output, CharSequence text) {
+        return write(output, writer -> {
+            try {
+                writer.append(text);
+            } catch (IOException e) {
+                throw I.quiet(e);
+            }
+        });
+    }
+
+    /**
+     * Write out all managed styles. Each fragment is written to the specified output in emission
+     * order, so the whole stylesheet is never built in memory.
      * 
      * @param output A style output buffer.
      */
     public final void formatTo(Appendable output) {
         try {
-            output.append(format());
-        } catch (IOException e) {
-            throw I.quiet(e);
+            format(targets(), output);
         } finally {
             I.quiet(output);
         }
     }
 
     /**
-     * Write out the specified {@link Style}.
+     * Compile all style definitions which are listed in {@link StyleIndex}.
      * 
-     * @param styles The style definitions.
-     * @return A stylesheet representation.
+     * @return The compiled rules.
+     * @see #compile(Class...)
      */
-    private String format(Iterable<Style> styles) {
-        StringBuilder builder = new StringBuilder();
-
-        I.signal(styles).map(StyleRule::create).sort(Comparator.naturalOrder()).to(e -> {
-            format(e, builder);
-        });
+    public final Compilation compile() {
+        return compile(StyleIndex.classes().toArray(new Class[0]));
+    }
 
-        imports.addAll(externals);
-        StringBuilder addition = new StringBuilder();
-        for (String external : imports) {
-            addition.append("@import url(\"").append(external).append("\");").append(afterPropertyLine);
+    /**
+     * Compile the specified style definitions in bulk. The styles of each class are collected and
+     * evaluated concurrently on the pool specified by {@link #parallel(ForkJoinPool)} (or the common
+     * pool), and the rules are merged in the same order as the sequential formatting. The class
+     * names are allocated sequentially in the specified order before evaluation, so the result
+     * doesn't depend on the thread scheduling.
+     * 
+     * @param definitions The style definitions.
+     * @return The compiled rules.
+     */
+    public final Compilation compile(Class... definitions) {
+        ForkJoinPool executor = pool == null ? ForkJoinPool.commonPool() : pool;
+        long start = System.nanoTime();
+
+        // collect styles of each class concurrently
+        List<ForkJoinTask<List<Style>>> scans = new ArrayList();
+        long[] elapsed = new long[definitions.length];
+        for (int i = 0; i < definitions.length; i++) {
+            int index = i;
+            scans.add(executor.submit(() -> {
+                long time = System.nanoTime();
+                List<Style> styles = declared(definitions[index]);
+                elapsed[index] = System.nanoTime() - time;
+                return styles;
+            }));
         }
 
-        for (AnimationFrames frames : animations) {
-            format(frames, addition);
+        List<List<Style>> styles = new ArrayList();
+        for (ForkJoinTask<List<Style>> scan : scans) {
+            List<Style> collected = scan.join();
+            styles.add(collected);
+
+            // allocate class names in the specified order
+            collected.forEach(Style::selector);
         }
 
-        if (scheme != null) {
-            for (DefinedTheme theme : scheme.themes) {
-                format(theme.isMain, theme, addition);
-            }
+        // evaluate styles of each class concurrently
+        List<ForkJoinTask<List<StyleRule>>> evaluations = new ArrayList();
+        for (int i = 0; i < definitions.length; i++) {
+            int index = i;
+            evaluations.add(executor.submit(() -> {
+                long time = System.nanoTime();
+                List<StyleRule> rules = new ArrayList();
+                for (Style style : styles.get(index)) {
+                    rules.add(evaluate(style));
+                }
+                elapsed[index] += System.nanoTime() - time;
+                return rules;
+            }));
         }
 
-        builder.insert(0, addition);
+        List<StyleRule> rules = new ArrayList();
+        Map<String, Duration> timings = new LinkedHashMap();
+        Map<String, Integer> sizes = new LinkedHashMap();
+        for (int i = 0; i < definitions.length; i++) {
+            List<StyleRule> evaluated = evaluations.get(i).join();
+            String name = definitions[i].getName();
 
-        return builder.toString();
+            rules.addAll(evaluated);
+            timings.merge(name, Duration.ofNanos(elapsed[i]), Duration::plus);
+            sizes.merge(name, evaluated.size(), Integer::sum);
+        }
+        rules.sort(Comparator.naturalOrder());
+
+        return new Compilation(rules, timings, sizes, Duration.ofNanos(System.nanoTime() - start));
     }
 
     /**
-     * Format the specified {@link AnimationFrames}.
+     * Write out the compiled rules.
      * 
-     * @param theme
-     * @param appendable
+     * @param compilation The compiled rules.
+     * @return A formatted stylesheet.
      */
-    final void format(boolean isDefault, DefinedTheme theme, Appendable appendable) {
-        try {
-            String selector = isDefault ? ":root" : "." + theme.name + ":root";
-
-            appendable.append(selector).append(afterSelector).append('{').append(afterStartBrace);
-            for (int i = 0; i < theme.variables.size(); i++) {
-                appendable.append(beforePropertyName)
-                        .append("--")
-                        .append(theme.variables.name(i).toString())
-                        .append(afterPropertyName)
-                        .append(':')
-                        .append(beforePropertyValue)
-                        .append(theme.variables.value(i).toString())
-                        .append(afterPropertyValue)
-                        .append(';')
-                        .append(afterPropertyLine);
-            }
-            appendable.append(beforeEndBrace).append('}').append(afterEndBrace);
-        } catch (IOException e) {
-            throw I.quiet(e);
-        }
+    public final String format(Compilation compilation) {
+        StringBuilder builder = new StringBuilder();
+        format(compilation.rules, builder);
+        return builder.toString();
     }
 
     /**
-     * Format the specified {@link AnimationFrames}.
+     * Write out the compiled rules to the specified file.
      * 
-     * @param frames
-     * @param appendable
+     * @param compilation The compiled rules.
+     * @param output An output file.
+     * @return The actual output file.
      */
-    final void format(AnimationFrames frames, Appendable appendable) {
-        try {
-            appendable.append("@keyframes ").append(frames.name).append(afterSelector).append('{').append(afterStartBrace);
-            for (int i = 0; i < frames.progressions.size(); i++) {
-                String progress = IntStream.of(frames.progressions.get(i)).mapToObj(e -> e + "%").collect(Collectors.joining(","));
-                Properties properties = frames.styles.get(i).properties;
-
-                appendable.append(progress).append(afterSelector).append('{').append(afterStartBrace);
-                for (int j = 0; j < properties.size(); j++) {
-                    appendable.append(beforePropertyName)
-                            .append(properties.name(j).toString())
-                            .append(afterPropertyName)
-                            .append(':')
-                            .append(beforePropertyValue)
-                            .append(properties.value(j).format(this))
-                            .append(afterPropertyValue)
-                            .append(';')
-                            .append(afterPropertyLine);
-                }
-                appendable.append(beforeEndBrace).append('}').append(afterEndBrace);
-            }
-            appendable.append(beforeEndBrace).append('}').append(afterEndBrace);
-        } catch (IOException e) {
-            throw I.quiet(e);
-        }
+    public final Path formatTo(Compilation compilation, Path output) {
+        return write(output, writer -> format(compilation.rules, writer));
     }
 
     /**
-     * Format the specified {@link StyleRule}.
+     * Write out the compact rules. Each rule tree is rebuilt only while it is formatted, so the
+     * expanded trees are not retained all at once.
      * 
-     * @param rule A target to format.
-     * @return A formatted text.
+     * @param rules The compact rules.
+     * @return A formatted stylesheet.
      */
-    final String format(StyleRule rule) {
+    public final String format(Collection<CompactRule> rules) {
         StringBuilder builder = new StringBuilder();
-        format(rule, builder);
+        format(expand(rules), builder);
         return builder.toString();
     }
 
     /**
-     * Format the specified {@link StyleRule}.
+     * Write out the compact rules to the specified file. Each rule tree is rebuilt only while it is
+     * formatted, so the expanded trees are not retained all at once.
      * 
-     * @param rule A target to format.
-     * @param appendable An output for the formatted text.
+     * @param rules The compact rules.
+     * @param output An output file.
+     * @return The actual output file.
      */
-    final void format(StyleRule rule, Appendable appendable) {
-        if (showEmptyStyle == false && rule.properties.size() == 0) {
-            for (StyleRule child : rule.children) {
-                format(child, appendable);
+    public final Path formatTo(Collection<CompactRule> rules, Path output) {
+        List<StyleRule> expanded = expand(rules);
+        return write(output, writer -> format(expanded, writer));
+    }
+
+    /**
+     * Build the read-only view which rebuilds the transient rule tree from the compact rule on each
+     * access.
+     * 
+     * @param rules The compact rules.
+     * @return The lazily rebuilt rules in description order.
+     */
+    private static List<StyleRule> expand(Collection<CompactRule> rules) {
+        List<CompactRule> sorted = new ArrayList(rules);
+        sorted.sort(Comparator.naturalOrder());
+
+        return new AbstractList<StyleRule>() {
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public StyleRule get(int index) {
+                return sorted.get(index).expand();
             }
-            return;
-        }
 
-        try {
-            for (Consumer<Properties> processor : posts) {
-                processor.accept(rule.properties);
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public int size() {
+                return sorted.size();
             }
+        };
+    }
 
-            appendable.append(beforeSelector)
-                    .append(comment(rule.description))
-                    .append(rule.selector.toString())
-                    .append(afterSelector)
-                    .append('{')
-                    .append(afterStartBrace);
+    /**
+     * Write out all managed styles into the chunk of each declaring class or user-defined group.
+     * The rules used by several groups, imports, animations and themes are written in the shared
+     * chunk.
+     * 
+     * @param directory An output directory.
+     * @return The manifest file which maps each group to the chunk files to load.
+     */
+    public final Path formatChunksTo(Path directory) {
+        Map<String, String> files = new LinkedHashMap();
+        Map<String, List<String>> loads = new StyleChunks(this, groups).split(files);
+        Map<String, String> names = new HashMap();
+
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            Path written = write(directory.resolve(file.getKey()), file.getValue());
+            names.put(file.getKey(), written.getFileName().toString());
+        }
 
-            for (int i = 0, size = rule.properties.size(); i < size; i++) {
-                appendable.append(beforePropertyName)
-                        .append(rule.properties.name(i).toString())
-                        .append(afterPropertyName)
-                        .append(':')
-                        .append(beforePropertyValue)
-                        .append(rule.properties.value(i).format(this))
-                        .append(afterPropertyValue)
-                        .append(';')
-                        .append(afterPropertyLine);
-            }
-            appendable.append(beforeEndBrace).append('}').append(afterEndBrace);
+        for (List<String> load : loads.values()) {
+            load.replaceAll(names::get);
+        }
 
-            for (StyleRule child : rule.children) {
-                format(child, appendable);
-            }
+        Path manifest = directory.resolve(Manifest);
+        try (ChannelWriter writer = new ChannelWriter(manifest, precompression)) {
+            writer.append(Json.write(loads));
         } catch (IOException e) {
-            throw new IOError(e);
+            throw I.quiet(e);
         }
+        return manifest;
     }
 
     /**
-     * Write comment.
+     * Write out all managed styles into the chunk of each declaring class or user-defined group.
+     * The declaring class is computed from {@link Style#detail()}, so no style is evaluated twice.
      * 
-     * @param message
+     * @return The chunk files and the manifest file by file name.
      */
-    private String comment(String message) {
-        if (comment && message != null && message.length() != 0) {
-            return "/* " + message + " */";
-        } else {
-            return "";
-        }
+    public final Map<String, String> formatChunks() {
+        Map<String, String> files = new LinkedHashMap();
+        files.put(Manifest, Json.write(new StyleChunks(this, groups).split(files)));
+
+        return files;
     }
 
     /**
-     * Default human-readable formatter.
+     * Write out all managed styles into the file of each media query. The unconditional rules,
+     * imports, animations and themes are written in "all.css", and the rules of each media query
+     * are written in the separated file without @media block. Browsers don't block rendering on the
+     * stylesheet which is linked with the unmatched media attribute.
      * 
-     * @return
+     * @param directory An output directory.
+     * @return The manifest file which maps each file to the media attribute to link.
      */
-    public static final Stylist pretty() {
-        return new Stylist().comment(true)
-                .selector("", " ")
-                .startBrace("\r\n")
-                .propertyName("\t", "")
-                .propertyValue(" ", "")
-                .propertyLine("\r\n")
-                .endBrace("", "\r\n\r\n");
+    public final Path formatMediaTo(Path directory) {
+        Map<String, String> queries = new LinkedHashMap();
+        Map<String, String> entries = new LinkedHashMap();
+
+        for (Map.Entry<String, String> file : MediaSplit.split(this, queries).entrySet()) {
+            Path written = write(directory.resolve(file.getKey()), file.getValue());
+            entries.put(written.getFileName().toString(), queries.get(file.getKey()));
+        }
+
+        Path manifest = directory.resolve(MediaManifest);
+        try (ChannelWriter writer = new ChannelWriter(manifest, precompression)) {
+            writer.append(Json.write(entries));
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+        return manifest;
     }
 
     /**
-     * Default computer-readable formatter.
+     * Write out all managed styles into the file of each media query.
      * 
-     * @return
+     * @return The stylesheet files and the manifest file by file name.
      */
-    public static final Stylist compact() {
-        return new Stylist();
-    }
+    public final Map<String, String> formatMedia() {
+        Map<String, String> queries = new LinkedHashMap();
+        Map<String, String> files = MediaSplit.split(this, queries);
+
+        files.put(MediaManifest, Json.write(queries));
+
+        return files;
+    }
+
+    /**
+     * Measure the byte cost of all managed styles and check the size budget. The cost is measured
+     * on the plain emission, so the selector grouping, cache and parallel formatting are not used
+     * in this mode.
+     * 
+     * @return The size report.
+     * @throws IllegalStateException The strict budget is exceeded.
+     */
+    public final SizeReport report() {
+        SizeReport report = SizeReport.measure(this);
+
+        return budget == null ? report : report.check(budget);
+    }
+
+    /**
+     * Split all managed styles into the critical stylesheet which is required to render the
+     * specified HTML snapshots and the deferred stylesheet. The imports, animations and themes are
+     * written in the critical stylesheet. The selector grouping, cache and parallel formatting are
+     * not used in this mode.
+     * 
+     * @param snapshots The local HTML files.
+     * @return The split stylesheet.
+     */
+    public final CriticalCSS critical(Path... snapshots) {
+        List<HTMLSnapshot> documents = new ArrayList();
+
+        for (Path snapshot : snapshots) {
+            try {
+                documents.add(new HTMLSnapshot(Files.readString(snapshot)));
+            } catch (IOException e) {
+                throw I.quiet(e);
+            }
+        }
+        return critical(documents);
+    }
+
+    /**
+     * Split all managed styles by the specified documents.
+     * 
+     * @param documents The parsed HTML documents.
+     * @return The split stylesheet.
+     */
+    final CriticalCSS critical(List<HTMLSnapshot> documents) {
+        return CriticalCSS.split(this, documents);
+    }
+
+    /**
+     * Collect all target styles.
+     * 
+     * @return
+     */
+    final Iterable<Style> targets() {
+        Iterable<Style> targets = styles.isEmpty() ? I.signal(registered()).as(Style.class).toList() : styles;
+
+        return pruneUnused ? I.signal(targets).take(StyleUsage::isUsed).toList() : targets;
+    }
+
+    /**
+     * Evaluate the specified styles and sort them in emission order.
+     * 
+     * @param styles The style definitions.
+     * @return The sorted rules.
+     */
+    final List<StyleRule> rules(Iterable<Style> styles) {
+        return I.signal(styles).map(this::evaluate).sort(Comparator.naturalOrder()).toList();
+    }
+
+    /**
+     * Evaluate the specified style.
+     * 
+     * @param style A style definition.
+     * @return The evaluated rule.
+     */
+    private StyleRule evaluate(Style style) {
+        return memoize ? StyleRule.snapshot(style) : StyleRule.create(style);
+    }
+
+    /**
+     * Write out the specified {@link Style}.
+     * 
+     * @param styles The style definitions.
+     * @param output A style output buffer.
+     */
+    private void format(Iterable<Style> styles, Appendable output) {
+        if (cache != null && groupSelector == false) {
+            formatByCache(styles, output);
+            return;
+        }
+
+        // The rules must be created before writing any header because the evaluation of style
+        // registers the animations and external stylesheets to write.
+        format(rules(styles), output);
+    }
+
+    /**
+     * Write out the specified sorted rules.
+     * 
+     * @param rules The sorted rules.
+     * @param output A style output buffer.
+     */
+    private void format(List<StyleRule> rules, Appendable output) {
+        if (groupSelector) {
+            formatByGroup(rules, output);
+            return;
+        }
+
+        Map<String, StringBuilder> media = new LinkedHashMap();
+
+        formatHeader(output);
+        if (pool == null) {
+            for (StyleRule rule : rules) {
+                format(rule, output, media);
+            }
+        } else {
+            formatInParallel(rules, output, media);
+        }
+        writeMedia(media, output);
+    }
+
+    /**
+     * Write out the specified rules with grouping the identical declaration blocks.
+     * 
+     * @param rules The sorted rules.
+     * @param output A style output buffer.
+     */
+    private void formatByGroup(List<StyleRule> rules, Appendable output) {
+        Emitter emitter = emitter();
+        SelectorGrouping grouping = new SelectorGrouping();
+        Map<String, StringBuilder> media = new LinkedHashMap();
+
+        try {
+            // walk one root at a time to touch each rule tree only once
+            ArrayDeque<StyleRule> remaining = new ArrayDeque();
+            for (StyleRule root : rules) {
+                remaining.push(root);
+
+                while (remaining.isEmpty() == false) {
+                    StyleRule current = remaining.pop();
+
+                    for (int i = current.children.size() - 1; 0 <= i; i--) {
+                        remaining.push(current.children.get(i));
+                    }
+
+                    if (showEmptyStyle == false && current.properties.size() == 0) {
+                        continue;
+                    }
+
+                    // the conditional rule is never grouped with the unconditional rule
+                    if (current.media != null) {
+                        write(current, emitter, media.computeIfAbsent(current.media, key -> new StringBuilder()));
+                        continue;
+                    }
+
+                    Properties properties = process(current.properties);
+
+                    List<String> names = new ArrayList();
+                    StringBuilder block = new StringBuilder();
+                    for (int i = 0, size = properties.size(); i < size; i++) {
+                        names.add(properties.name(i).toString());
+                        property(emitter, block, properties.name(i), properties.value(i));
+                    }
+                    grouping.add(comment(current.description), current.selector.toString(), names, block.toString());
+                }
+            }
+
+            formatHeader(output);
+            for (Group group : grouping.groups) {
+                emitter.selector(output, group.comment, group.selector());
+                output.append(group.block);
+                emitter.close(output);
+            }
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+        writeMedia(media, output);
+    }
+
+    /**
+     * Format the sorted rules chunk by chunk in parallel, and write out the formatted chunks in the
+     * original order.
+     * 
+     * @param rules The sorted rules.
+     * @param output A style output buffer.
+     * @param media The media buckets.
+     */
+    private void formatInParallel(List<StyleRule> rules, Appendable output, Map<String, StringBuilder> media) {
+        int divisions = pool.getParallelism() * 4;
+        int chunk = Math.max(MinimumChunkSize, (rules.size() + divisions - 1) / divisions);
+        List<ForkJoinTask<Fragment>> tasks = new ArrayList();
+
+        for (int start = 0; start < rules.size(); start += chunk) {
+            List<StyleRule> sub = rules.subList(start, Math.min(start + chunk, rules.size()));
+
+            tasks.add(pool.submit(() -> {
+                StringBuilder builder = new StringBuilder();
+                Map<String, StringBuilder> buckets = new LinkedHashMap();
+                for (StyleRule rule : sub) {
+                    format(rule, builder, buckets);
+                }
+                return new Fragment(null, null, builder.toString(), texts(buckets));
+            }));
+        }
+
+        for (ForkJoinTask<Fragment> task : tasks) {
+            append(task.join(), output, media);
+        }
+    }
+
+    /**
+     * Write out the specified {@link Style} with the formatted text cache.
+     * 
+     * @param styles The style definitions.
+     * @param output A style output buffer.
+     */
+    private void formatByCache(Iterable<Style> styles, Appendable output) {
+        List profile = profile();
+        List<Fragment> fragments = new ArrayList();
+
+        for (Style style : styles) {
+            Fragment fragment = cache.get(style, null, profile);
+
+            if (fragment == null) {
+                fragment = render(evaluate(style));
+                cache.put(style, null, profile, fragment);
+            }
+            fragments.add(fragment);
+        }
+        fragments.sort(Comparator.comparing(fragment -> fragment.description));
+
+        Map<String, StringBuilder> media = new LinkedHashMap();
+
+        formatHeader(output);
+        for (Fragment fragment : fragments) {
+            append(fragment, output, media);
+        }
+        writeMedia(media, output);
+    }
+
+    /**
+     * Build the configuration of this formatter which affects the formatted text. It is built once
+     * until the configuration is updated.
+     * 
+     * @return
+     */
+    private List profile() {
+        List built = profile;
+
+        if (built == null) {
+            built = profile = List.of(beforeSelector, afterSelector, afterStartBrace, beforeEndBrace, afterEndBrace, beforePropertyName, afterPropertyName,
+                    beforePropertyValue, afterPropertyValue, afterPropertyLine, color, comment, showEmptyStyle, shorthand,
+                    EnumSet.copyOf(vendors), List.copyOf(posts));
+        }
+        return built;
+    }
+
+    /**
+     * Write out the imported stylesheets, animations and themes which precede all rules.
+     * 
+     * @param output A style output buffer.
+     */
+    final void formatHeader(Appendable output) {
+        try {
+            imports.addAll(externals);
+            for (String external : imports) {
+                output.append("@import url(\"").append(external).append("\");").append(afterPropertyLine);
+            }
+
+            for (AnimationFrames frames : animations) {
+                format(frames, output);
+            }
+
+            if (scheme != null) {
+                for (DefinedTheme theme : scheme.themes) {
+                    format(theme.isMain, theme, output);
+                }
+            }
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Format the specified {@link AnimationFrames}.
+     * 
+     * @param theme
+     * @param appendable
+     */
+    final void format(boolean isDefault, DefinedTheme theme, Appendable appendable) {
+        StyleEvents.Theme event = new StyleEvents.Theme();
+        event.begin();
+
+        try {
+            String selector = isDefault ? ":root" : "." + theme.name + ":root";
+
+            Emitter emitter = emitter();
+
+            // measure the emitted theme only while the event is recorded
+            Appendable output = event.isEnabled() ? new StringBuilder() : appendable;
+            output.append(selector);
+            emitter.open(output);
+            for (int i = 0; i < theme.variables.size(); i++) {
+                emitter.property(output, "--" + theme.variables.name(i), theme.variables.value(i).toString());
+            }
+            emitter.close(output);
+
+            event.end();
+            if (output != appendable) {
+                String emitted = output.toString();
+                appendable.append(emitted);
+
+                if (event.shouldCommit()) {
+                    event.theme = theme.name;
+                    event.variables = theme.variables.size();
+                    event.bytes = emitted.getBytes(StandardCharsets.UTF_8).length;
+                    event.commit();
+                }
+            }
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Format the specified {@link AnimationFrames}.
+     * 
+     * @param frames
+     * @param appendable
+     */
+    final void format(AnimationFrames frames, Appendable appendable) {
+        try {
+            Emitter emitter = emitter();
+
+            appendable.append("@keyframes ").append(frames.name);
+            emitter.open(appendable);
+            for (int i = 0; i < frames.progressions.size(); i++) {
+                String progress = IntStream.of(frames.progressions.get(i)).mapToObj(e -> e + "%").collect(Collectors.joining(","));
+                Properties properties = frames.styles.get(i).properties;
+
+                appendable.append(progress);
+                emitter.open(appendable);
+                for (int j = 0; j < properties.size(); j++) {
+                    property(emitter, appendable, properties.name(j), properties.value(j));
+                }
+                emitter.close(appendable);
+            }
+            emitter.close(appendable);
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Format the specified {@link StyleRule}.
+     * 
+     * @param rule A target to format.
+     * @return A formatted text.
+     */
+    final String format(StyleRule rule) {
+        StringBuilder builder = new StringBuilder();
+        format(rule, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Format the specified {@link StyleRule}.
+     * 
+     * @param rule A target to format.
+     * @param appendable An output for the formatted text.
+     */
+    final void format(StyleRule rule, Appendable appendable) {
+        Map<String, StringBuilder> media = new LinkedHashMap();
+        format(rule, appendable, media);
+        writeMedia(media, appendable);
+    }
+
+    /**
+     * Format the specified {@link StyleRule}. The conditional rules are written in the media
+     * buckets instead of the output.
+     * 
+     * @param rule A target to format.
+     * @param appendable An output for the formatted text.
+     * @param media The media buckets.
+     */
+    final void format(StyleRule rule, Appendable appendable, Map<String, StringBuilder> media) {
+        if (cache == null) {
+            write(rule, appendable, media);
+        } else {
+            append(fragment(rule), appendable, media);
+        }
+    }
+
+    /**
+     * Format the specified root {@link StyleRule} with the formatted text cache. The fragment is
+     * identified by the original {@link Style} and the content of the rule tree, so the rule which
+     * is evaluated again with the same content hits the cache, and the other rule of the same style
+     * never gets the text of the cached one.
+     * 
+     * @param rule A target to format.
+     * @return The formatted fragment.
+     */
+    final Fragment fragment(StyleRule rule) {
+        if (cache == null) {
+            return render(rule);
+        }
+
+        List profile = profile();
+        String content = content(rule);
+        Fragment fragment = cache.get(rule.style, content, profile);
+
+        if (fragment == null) {
+            fragment = render(rule);
+            cache.put(rule.style, content, profile, fragment);
+        }
+        return fragment;
+    }
+
+    /**
+     * Build the fingerprint of the content of the specified rule tree.
+     * 
+     * @param rule A target rule.
+     * @return The description, selector, media query and properties of all rules in the tree.
+     */
+    private static String content(StyleRule rule) {
+        StringBuilder builder = new StringBuilder();
+        ArrayDeque<StyleRule> remaining = new ArrayDeque();
+        remaining.push(rule);
+
+        while (remaining.isEmpty() == false) {
+            StyleRule current = remaining.pop();
+
+            for (int i = current.children.size() - 1; 0 <= i; i--) {
+                remaining.push(current.children.get(i));
+            }
+            builder.append(current.description).append('\0').append(current.selector).append('\0').append(current.media);
+            for (int i = 0, size = current.properties.size(); i < size; i++) {
+                builder.append('\0').append(current.properties.name(i)).append('\0').append(current.properties.value(i));
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Discard the formatted text of the specified redefined {@link Style}.
+     * 
+     * @param style A redefined style.
+     */
+    final void invalidate(Style style) {
+        if (cache != null) {
+            cache.invalidate(style);
+        }
+    }
+
+    /**
+     * Format the specified {@link StyleRule} into the new fragment.
+     * 
+     * @param rule A target to format.
+     * @return The formatted fragment.
+     */
+    private Fragment render(StyleRule rule) {
+        return render(rule, null);
+    }
+
+    /**
+     * Format the specified {@link StyleRule} into the new fragment.
+     * 
+     * @param rule A target to format.
+     * @param observer A receiver of the processed properties of each written rule, null means no
+     *            observer.
+     * @return The formatted fragment.
+     */
+    final Fragment render(StyleRule rule, BiConsumer<StyleRule, Properties> observer) {
+        StringBuilder builder = new StringBuilder();
+        Map<String, StringBuilder> media = new LinkedHashMap();
+        write(rule, builder, media, observer);
+
+        return new Fragment(rule.style, rule.description, builder.toString(), texts(media));
+    }
+
+    /**
+     * Write the specified fragment and merge its conditional rules into the media buckets.
+     * 
+     * @param fragment A formatted fragment.
+     * @param appendable An output for the formatted text.
+     * @param media The media buckets.
+     */
+    final void append(Fragment fragment, Appendable appendable, Map<String, StringBuilder> media) {
+        try {
+            appendable.append(fragment.text);
+        } catch (IOException e) {
+            throw new IOError(e);
+        }
+
+        for (Map.Entry<String, String> entry : fragment.media.entrySet()) {
+            media.computeIfAbsent(entry.getKey(), key -> new StringBuilder()).append(entry.getValue());
+        }
+    }
+
+    /**
+     * Write out all media buckets. Each bucket is written in the single @media block.
+     * 
+     * @param media The media buckets.
+     * @param appendable An output for the formatted text.
+     */
+    final void writeMedia(Map<String, StringBuilder> media, Appendable appendable) {
+        Emitter emitter = emitter();
+
+        try {
+            for (Map.Entry<String, StringBuilder> bucket : media.entrySet()) {
+                appendable.append("@media ").append(bucket.getKey());
+                emitter.open(appendable);
+                appendable.append(bucket.getValue());
+                emitter.close(appendable);
+            }
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Freeze the media buckets.
+     * 
+     * @param media The media buckets.
+     * @return The formatted text by media query.
+     */
+    private static Map<String, String> texts(Map<String, StringBuilder> media) {
+        if (media.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, String> texts = new LinkedHashMap();
+        for (Map.Entry<String, StringBuilder> bucket : media.entrySet()) {
+            texts.put(bucket.getKey(), bucket.getValue().toString());
+        }
+        return texts;
+    }
+
+    /**
+     * Format the specified {@link StyleRule} and its descendants. The conditional rules are written
+     * in the media buckets instead of the output.
+     * 
+     * @param rule A target to format.
+     * @param appendable An output for the formatted text.
+     * @param media The media buckets.
+     */
+    private void write(StyleRule rule, Appendable appendable, Map<String, StringBuilder> media) {
+        write(rule, appendable, media, null);
+    }
+
+    /**
+     * Format the specified {@link StyleRule} and its descendants. The conditional rules are written
+     * in the media buckets instead of the output. Each rule is processed only once, and the
+     * processed properties are passed to the observer before they are written.
+     * 
+     * @param rule A target to format.
+     * @param appendable An output for the formatted text.
+     * @param media The media buckets.
+     * @param observer A receiver of the processed properties of each written rule, null means no
+     *            observer.
+     */
+    private void write(StyleRule rule, Appendable appendable, Map<String, StringBuilder> media, BiConsumer<StyleRule, Properties> observer) {
+        Emitter emitter = emitter();
+
+        // traverse rule tree iteratively to support the deeply nested rules
+        ArrayDeque<StyleRule> remaining = new ArrayDeque();
+        remaining.push(rule);
+
+        try {
+            while (remaining.isEmpty() == false) {
+                StyleRule current = remaining.pop();
+
+                for (int i = current.children.size() - 1; 0 <= i; i--) {
+                    remaining.push(current.children.get(i));
+                }
+
+                if (showEmptyStyle == false && current.properties.size() == 0) {
+                    continue;
+                }
+
+                Properties properties = process(current.properties);
+                if (observer != null) {
+                    observer.accept(current, properties);
+                }
+
+                if (current.media == null) {
+                    write(current, properties, emitter, appendable);
+                } else {
+                    write(current, properties, emitter, media.computeIfAbsent(current.media, key -> new StringBuilder()));
+                }
+            }
+        } catch (IOException e) {
+            throw new IOError(e);
+        }
+    }
+
+    /**
+     * Format the specified {@link StyleRule} only.
+     * 
+     * @param rule A target to format.
+     * @param emitter The compiled decorations.
+     * @param appendable An output for the formatted text.
+     */
+    private void write(StyleRule rule, Emitter emitter, Appendable appendable) throws IOException {
+        write(rule, process(rule.properties), emitter, appendable);
+    }
+
+    /**
+     * Format the specified {@link StyleRule} only.
+     * 
+     * @param rule A target to format.
+     * @param appendable An output for the formatted text.
+     */
+    final void writeRule(StyleRule rule, Appendable appendable) throws IOException {
+        write(rule, emitter(), appendable);
+    }
+
+    /**
+     * Check whether the specified {@link StyleRule} is written or not.
+     * 
+     * @param rule A target rule.
+     * @return true if the rule is written.
+     */
+    final boolean isWritten(StyleRule rule) {
+        return showEmptyStyle || rule.properties.size() != 0;
+    }
+
+    /**
+     * Format the specified {@link StyleRule} only with the processed properties.
+     * 
+     * @param rule A target to format.
+     * @param properties The processed properties of the rule.
+     * @param emitter The compiled decorations.
+     * @param appendable An output for the formatted text.
+     */
+    private void write(StyleRule rule, Properties properties, Emitter emitter, Appendable appendable) throws IOException {
+        emitter.selector(appendable, comment(rule.description), rule.selector.toString());
+        for (int i = 0, size = properties.size(); i < size; i++) {
+            property(emitter, appendable, properties.name(i), properties.value(i));
+        }
+        emitter.close(appendable);
+    }
+
+    /**
+     * Write the property declaration preceded by the vendor-prefixed variants which the target
+     * vendors require. The variant which is identical to the other one is written only once.
+     * 
+     * @param emitter The compiled decorations.
+     * @param appendable An output for the formatted text.
+     * @param name A property name.
+     * @param value A property value.
+     */
+    private void property(Emitter emitter, Appendable appendable, CSSValue name, CSSValue value) throws IOException {
+        String standardName = name.toString();
+        String standardValue = value.format(this);
+
+        if (vendors.isEmpty() == false) {
+            EnumSet<Vendor> required = EnumSet.copyOf(name.vendors());
+            required.addAll(value.vendors());
+            required.retainAll(vendors);
+
+            if (required.isEmpty() == false) {
+                EnumSet<Vendor> vendoredValue = value.vendors();
+                Set<String> written = new HashSet();
+                written.add(standardName + ":" + standardValue);
+
+                for (Vendor vendor : required) {
+                    String vendorName = name.valueFor(vendor);
+                    String vendorValue = vendoredValue.contains(vendor) ? value.valueFor(vendor) : standardValue;
+
+                    if (written.add(vendorName + ":" + vendorValue)) {
+                        emitter.property(appendable, vendorName, vendorValue);
+                    }
+                }
+            }
+        }
+        emitter.property(appendable, standardName, standardValue);
+    }
+
+    /**
+     * Apply all post-processors and built-in optimizations to the copy of the properties of rule.
+     * The properties of rule are never modified, so the rule can be shared by several formatters.
+     * 
+     * @param properties The original properties.
+     * @return The processed properties.
+     */
+    private Properties process(Properties properties) {
+        if (posts.isEmpty() && shorthand == false) {
+            return properties;
+        }
+
+        StyleEvents.PostProcess event = new StyleEvents.PostProcess();
+        event.begin();
+
+        Properties processed = properties.copy();
+        for (Consumer<Properties> processor : posts) {
+            processor.accept(processed);
+        }
+
+        if (shorthand) {
+            Shorthand.compact(processed);
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.processors = posts.size();
+            event.before = properties.size();
+            event.after = processed.size();
+            event.commit();
+        }
+        return processed;
+    }
+
+    /**
+     * Compile the current decorations.
+     * 
+     * @return
+     */
+    private Emitter emitter() {
+        Emitter compiled = emitter;
+
+        if (compiled == null) {
+            emitter = compiled = new Emitter(this);
+        }
+        return compiled;
+    }
+
+    /**
+     * Write comment.
+     * 
+     * @param message
+     */
+    private String comment(String message) {
+        if (comment && message != null && message.length() != 0) {
+            return "/* " + message + " */";
+        } else {
+            return "";
+        }
+    }
+
+    /**
+     * Default human-readable formatter.
+     * 
+     * @return
+     */
+    public static final Stylist pretty() {
+        return new Stylist().comment(true)
+                .selector("", " ")
+                .startBrace("\r\n")
+                .propertyName("\t", "")
+                .propertyValue(" ", "")
+                .propertyLine("\r\n")
+                .endBrace("", "\r\n\r\n");
+    }
+
+    /**
+     * Default computer-readable formatter.
+     * 
+     * @return
+     */
+    public static final Stylist compact() {
+        return new Stylist();
+    }
 
     /** 1byte charset. */
     private static final char[] chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
@@ -591,6 +1735,15 @@ public final class Stylist {
     /** The start index. */
     private static final int base = chars.length;
 
+    /** The file name of the chunk manifest. */
+    private static final String Manifest = "manifest.json";
+
+    /** The file name of the media manifest. */
+    private static final String MediaManifest = "media.json";
+
+    /** The minimum number of rules which are formatted in one parallel task. */
+    private static final int MinimumChunkSize = 64;
+
     /** The managed locations. */
     private static final Map<Style, String> id = new ConcurrentHashMap();
 
@@ -600,9 +1753,11 @@ public final class Stylist {
     /** The animation manager. */
     static final Set<AnimationFrames> animations = ConcurrentHashMap.newKeySet();
 
+    // Register all styles of every style definition in the order of index before any identifier
+    // is handed out, so the class names never depend on the order of first use.
     static {
-        for (Class domain : I.findAs(StyleDeclarable.class)) {
-            styles(domain).forEach(Style::selector);
+        for (Class definition : StyleIndex.classes()) {
+            declared(definition).forEach(Style::selector);
         }
     }
 
@@ -613,21 +1768,72 @@ public final class Stylist {
      * @return An identifier.
      */
     static String id(Style location) {
+        String assigned = id.get(location);
+
+        if (assigned != null) {
+            return assigned;
+        }
+
+        // the detail of style is computed by reflection, so it must be outside of the map operation
+        String predefined = IdAllocation.predefined(location);
+
         return id.computeIfAbsent(location, key -> {
-            int id = counter.getAndIncrement();
+            String name = predefined;
 
-            if (id == 0) {
-                return "." + String.valueOf(chars[0]);
+            if (name == null) {
+                do {
+                    name = name(counter.getAndIncrement());
+                } while (IdAllocation.isReserved(name));
             }
+            return "." + name;
+        });
+    }
+
+    /**
+     * Compute the class name of the specified sequence number. The smaller number has the shorter
+     * name.
+     * 
+     * @param id A sequence number.
+     * @return A class name.
+     */
+    static String name(long id) {
+        if (id == 0) {
+            return String.valueOf(chars[0]);
+        }
+
+        StringBuilder builder = new StringBuilder();
+
+        while (id != 0) {
+            builder.append(chars[(int) (id % base)]);
+            id /= base;
+        }
+        return builder.toString();
+    }
 
-            StringBuilder builder = new StringBuilder();
+    /**
+     * Get all registered styles.
+     * 
+     * @return
+     */
+    static Set<Style> registered() {
+        return id.keySet();
+    }
 
-            while (id != 0) {
-                builder.append(chars[id % base]);
-                id /= base;
+    /**
+     * Find the style which has the specified class name.
+     * 
+     * @param name A class name.
+     * @return The style or null.
+     */
+    static Style owner(String name) {
+        String selector = "." + name;
+
+        for (Map.Entry<Style, String> entry : id.entrySet()) {
+            if (entry.getValue().equals(selector)) {
+                return entry.getKey();
             }
-            return "." + builder.toString();
-        });
+        }
+        return null;
     }
 
     /**
@@ -636,10 +1842,14 @@ public final class Stylist {
      * @param definition The style definitions
      * @return
      */
-    private static List<Style> styles(Class definition) {
+    static List<Style> declared(Class definition) {
+        StyleEvents.Scan event = new StyleEvents.Scan();
+        event.begin();
+
         List<Style> styles = new ArrayList();
+        Field[] fields = fields(definition);
 
-        for (Field field : definition.getFields()) {
+        for (Field field : fields) {
             try {
                 if (Modifier.isStatic(field.getModifiers())) {
                     field.setAccessible(true);
@@ -675,16 +1885,50 @@ public final class Stylist {
                 throw I.quiet(e);
             }
         }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.definition = definition.getName();
+            event.fields = fields.length;
+            event.styles = styles.size();
+            event.commit();
+        }
         return styles;
     }
 
+    /**
+     * List the public fields of the specified style definitions. The indexed fields are used if
+     * {@link StyleIndex} is found.
+     * 
+     * @param definition The style definitions
+     * @return
+     */
+    private static Field[] fields(Class definition) {
+        List<String> names = StyleIndex.fields(definition);
+
+        if (names == null) {
+            return definition.getFields();
+        }
+
+        try {
+            Field[] fields = new Field[names.size()];
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = definition.getField(names.get(i));
+            }
+            return fields;
+        } catch (NoSuchFieldException e) {
+            // the index is stale
+            return definition.getFields();
+        }
+    }
+
     /**
      * Collect all styles in the specified style definitions.
      * 
      * @param definition The style definitions
      * @return
      */
-    private static List<Style> styles(StyleDeclarable definition) {
+    private static List<Style> declared(StyleDeclarable definition) {
         List<Style> styles = new ArrayList();
 
         for (Field field : definition.getClass().getDeclaredFields()) {
@@ -725,7 +1969,7 @@ public final class Stylist {
     }
 
     /** The external stylesheets. */
-    private static final Set<String> externals = new HashSet();
+    private static final Set<String> externals = ConcurrentHashMap.newKeySet();
 
     /**
      * Register the external stylesheet to import.
@@ -737,4 +1981,92 @@ public final class Stylist {
             externals.add(uri);
         }
     }
+
+    /**
+     * Immutable emitter which is specialized for the decorations. The constant decorations are
+     * fused into the chunks and the empty decorations are not written at all.
+     */
+    private static final class Emitter {
+
+        /** The decoration before selector. */
+        private final String beforeSelector;
+
+        /** The chunk between selector and the first property. */
+        private final String open;
+
+        /** The decoration before property name. */
+        private final String beforeName;
+
+        /** The chunk between property name and value. */
+        private final String separator;
+
+        /** The chunk after property value. */
+        private final String terminator;
+
+        /** The chunk after the last property. */
+        private final String close;
+
+        /**
+         * Compile the decorations of the specified formatter.
+         * 
+         * @param formatter
+         */
+        private Emitter(Stylist formatter) {
+            this.beforeSelector = formatter.beforeSelector.isEmpty() ? null : formatter.beforeSelector;
+            this.open = formatter.afterSelector + "{" + formatter.afterStartBrace;
+            this.beforeName = formatter.beforePropertyName.isEmpty() ? null : formatter.beforePropertyName;
+            this.separator = formatter.afterPropertyName + ":" + formatter.beforePropertyValue;
+            this.terminator = formatter.afterPropertyValue + ";" + formatter.afterPropertyLine;
+            this.close = formatter.beforeEndBrace + "}" + formatter.afterEndBrace;
+        }
+
+        /**
+         * Write the selector and open the block.
+         * 
+         * @param out An output.
+         * @param comment A comment text.
+         * @param selector A selector text.
+         */
+        private void selector(Appendable out, String comment, String selector) throws IOException {
+            if (beforeSelector != null) {
+                out.append(beforeSelector);
+            }
+            if (comment.length() != 0) {
+                out.append(comment);
+            }
+            out.append(selector).append(open);
+        }
+
+        /**
+         * Open the block.
+         * 
+         * @param out An output.
+         */
+        private void open(Appendable out) throws IOException {
+            out.append(open);
+        }
+
+        /**
+         * Write the property declaration.
+         * 
+         * @param out An output.
+         * @param name A property name.
+         * @param value A property value.
+         */
+        private void property(Appendable out, String name, String value) throws IOException {
+            if (beforeName != null) {
+                out.append(beforeName);
+            }
+            out.append(name).append(separator).append(value).append(terminator);
+        }
+
+        /**
+         * Close the block.
+         * 
+         * @param out An output.
+         */
+        private void close(Appendable out) throws IOException {
+            out.append(close);
+        }
+    }
 }
\ No newline at end of file
@@ -16,8 +16,8 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * {@link Style} with the context value.
@@ -27,7 +27,7 @@ import java.util.Map;
 final class ValuedStyle<V> implements Style {
 
     /** The cache repository. */
-    static final Map<ValueStyle, Map<Object, Style>> cache = new HashMap();
+    static final Map<ValueStyle, Map<Object, Style>> cache = new ConcurrentHashMap();
 
     /** The original {@link ValueStyle}. */
     private final ValueStyle<V> base;
@@ -15,7 +15,7 @@ import stylist.PropertyDefinition;
 public class Content extends PropertyDefinition<Content> {
 
     private static String content() {
-        return rule.properties.get("content").map(CSSValue::toString).or("");
+        return rule().properties.get("content").map(CSSValue::toString).or("");
     }
 
     /**
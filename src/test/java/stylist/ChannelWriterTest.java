@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChannelWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void ascii() throws IOException {
+        assert write("display:block;");
+    }
+
+    @Test
+    void empty() throws IOException {
+        assert write("");
+    }
+
+    @Test
+    void multibyte() throws IOException {
+        assert write("content:\"あいうえお\";");
+    }
+
+    @Test
+    void large() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            builder.append(".A").append(i).append("{content:\"ä😀\";}");
+        }
+        assert write(builder.toString());
+    }
+
+    @Test
+    void surrogatePairAcrossAppends() throws IOException {
+        String text = "😀".repeat(50000);
+        Path file = dir.resolve("split.css");
+
+        try (ChannelWriter writer = new ChannelWriter(file)) {
+            for (int i = 0; i < text.length(); i++) {
+                writer.append(text.charAt(i));
+            }
+        }
+        assert Arrays.equals(Files.readAllBytes(file), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void malformedSurrogate() throws IOException {
+        Path file = dir.resolve("malformed.css");
+
+        boolean thrown = false;
+        try (ChannelWriter writer = new ChannelWriter(file)) {
+            writer.append("content:\"\ud800\";");
+        } catch (CharacterCodingException e) {
+            // same as Files.newBufferedWriter
+            thrown = true;
+        }
+        assert thrown;
+
+        // the released buffers are reusable
+        assert write("display:block;");
+    }
+
+    @Test
+    void trailingHighSurrogate() throws IOException {
+        Path file = dir.resolve("trailing.css");
+
+        boolean thrown = false;
+        try (ChannelWriter writer = new ChannelWriter(file)) {
+            writer.append("display:block;\ud800");
+        } catch (CharacterCodingException e) {
+            // same as Files.newBufferedWriter
+            thrown = true;
+        }
+        assert thrown;
+    }
+
+    @Test
+    void closeAllResources() {
+        IOException first = new IOException("first");
+        IOException second = new IOException("second");
+        boolean[] closed = new boolean[2];
+
+        Throwable error = ChannelWriter.close(() -> {
+            closed[0] = true;
+            throw first;
+        }, null);
+        error = ChannelWriter.close(() -> {
+            closed[1] = true;
+            throw second;
+        }, error);
+
+        assert closed[0] && closed[1];
+        assert error == first;
+        assert error.getSuppressed()[0] == second;
+    }
+
+    @Test
+    void closeAfterFailure() {
+        IOException failure = new IOException("failure");
+        boolean[] closed = new boolean[1];
+
+        Throwable error = ChannelWriter.close(() -> {
+            closed[0] = true;
+        }, failure);
+
+        assert closed[0];
+        assert error == failure;
+        assert error.getSuppressed().length == 0;
+    }
+
+    @Test
+    void reuseBuffers() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            assert write("content:\"" + "あ".repeat(i * 10000) + "\";");
+        }
+    }
+
+    /**
+     * Write the specified text by {@link ChannelWriter} and compare with the standard encoding.
+     * 
+     * @param text
+     * @return
+     */
+    private boolean write(String text) throws IOException {
+        Path file = dir.resolve("test.css");
+
+        try (ChannelWriter writer = new ChannelWriter(file)) {
+            // split into irregular fragments
+            int index = 0;
+            int size = 1;
+            while (index < text.length()) {
+                int end = Math.min(text.length(), index + size);
+                writer.append(text, index, end);
+                index = end;
+                size = size * 3 % 1021 + 1;
+            }
+        }
+        return Arrays.equals(Files.readAllBytes(file), text.getBytes(StandardCharsets.UTF_8));
+    }
+}
\ No newline at end of file
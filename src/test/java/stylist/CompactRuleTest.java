@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import stylist.value.Numeric;
+
+class CompactRuleTest {
+
+    @Test
+    void size() {
+        assert StyleRule.create(Styles.nested).compact().size() == 4;
+        assert StyleRule.create(Styles.flat).compact().size() == 1;
+    }
+
+    @Test
+    void expand() {
+        StyleRule rule = StyleRule.create(Styles.nested);
+        StyleRule expanded = rule.compact().expand();
+
+        assert expanded.selector.toString().equals(rule.selector.toString());
+        assert expanded.description.equals(rule.description);
+        assert expanded.properties.toString().equals(rule.properties.toString());
+        assert expanded.children.size() == rule.children.size();
+        assert expanded.children.get(0).children.size() == 1;
+        assert expanded.toString().equals(rule.toString());
+    }
+
+    @Test
+    void media() {
+        StyleRule rule = StyleRule.create(Styles.nested);
+
+        assert rule.compact().expand().children.get(1).media.equals(rule.children.get(1).media);
+        assert StyleRule.create(Styles.flat).compact().expand().media == null;
+    }
+
+    @Test
+    void independent() {
+        CompactRule compact = StyleRule.create(Styles.flat).compact();
+        compact.expand().properties.set("color", "red");
+
+        assert compact.expand().properties.size() == 1;
+    }
+
+    @Test
+    void internName() {
+        StyleRule flat = StyleRule.create(Styles.flat).compact().expand();
+        StyleRule nested = StyleRule.create(Styles.nested).compact().expand();
+
+        assert flat.properties.name(0) == nested.properties.name(0);
+    }
+
+    @Test
+    void sameAsFormatting() {
+        Stylist stylist = Stylist.compact();
+        List<CompactRule> rules = new ArrayList();
+        for (StyleRule rule : stylist.compile(CompilationTest.Buttons.class, Styles.class).rules()) {
+            rules.add(rule.compact());
+        }
+
+        assert stylist.format(rules).equals(Stylist.compact().styles(CompilationTest.Buttons.class, Styles.class).format());
+    }
+
+    @Test
+    void sameAsGroupFormatting() {
+        Stylist stylist = Stylist.compact().groupSelector(true);
+        List<CompactRule> rules = new ArrayList();
+        for (StyleRule rule : stylist.compile(CompilationTest.Buttons.class, Styles.class).rules()) {
+            rules.add(rule.compact());
+        }
+
+        assert stylist.format(rules)
+                .equals(Stylist.compact().groupSelector(true).styles(CompilationTest.Buttons.class, Styles.class).format());
+    }
+
+    @Test
+    void sameAsParallelFormatting() {
+        Stylist stylist = Stylist.compact().parallel(true);
+        List<CompactRule> rules = new ArrayList();
+        for (StyleRule rule : stylist.compile(CompilationTest.Buttons.class, Styles.class).rules()) {
+            rules.add(rule.compact());
+        }
+
+        assert stylist.format(rules).equals(Stylist.compact().styles(CompilationTest.Buttons.class, Styles.class).format());
+    }
+
+    /**
+     * Styles.
+     */
+    public static class Styles implements StyleDSL {
+
+        public static Style flat = () -> {
+            display.block();
+        };
+
+        public static Style nested = () -> {
+            display.block();
+
+            $.hover(() -> {
+                display.none();
+
+                $.child(() -> {
+                    display.inlineBlock();
+                });
+            });
+
+            $.maxWidth(Numeric.of(600, px), () -> {
+                display.flex();
+            });
+        };
+    }
+}
\ No newline at end of file
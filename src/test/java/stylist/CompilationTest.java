@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CompilationTest {
+
+    @Test
+    void compile() {
+        Compilation compilation = Stylist.compact().compile(Buttons.class, Forms.class);
+
+        assert compilation.rules().size() == 5;
+        assert compilation.rules().get(0).description.compareTo(compilation.rules().get(1).description) <= 0;
+        assert compilation.timings().size() == 2;
+        assert compilation.timings().containsKey(Buttons.class.getName());
+        assert compilation.timings().containsKey(Forms.class.getName());
+        assert compilation.wallTime().isNegative() == false;
+    }
+
+    @Test
+    void sameAsSequentialFormatting() {
+        Stylist stylist = Stylist.compact();
+        String formatted = stylist.format(stylist.compile(Buttons.class, Forms.class));
+
+        assert formatted.equals(Stylist.compact().styles(Buttons.class, Forms.class).format());
+    }
+
+    @Test
+    void deterministic() {
+        Stylist stylist = Stylist.compact().parallel(new ForkJoinPool(4));
+
+        String first = stylist.format(stylist.compile(Buttons.class, Forms.class));
+        String second = stylist.format(stylist.compile(Forms.class, Buttons.class));
+        assert first.equals(second);
+    }
+
+    @Test
+    void groupSelector() {
+        Stylist stylist = Stylist.compact().groupSelector(true);
+        String formatted = stylist.format(stylist.compile(Buttons.class, Forms.class));
+
+        assert formatted.equals(Stylist.compact().groupSelector(true).styles(Buttons.class, Forms.class).format());
+    }
+
+    @Test
+    void report() {
+        List<String> lines = List.of(Stylist.compact().compile(Buttons.class, Forms.class).report().split("\n"));
+
+        assert lines.size() == 3;
+        assert lines.get(0).matches("\\d+\t5\t\\(wall\\)");
+        assert lines.stream().anyMatch(line -> line.matches("\\d+\t4\t" + Buttons.class.getName().replace("$", "\\$")));
+        assert lines.stream().anyMatch(line -> line.matches("\\d+\t1\t" + Forms.class.getName().replace("$", "\\$")));
+    }
+
+    @Test
+    void formatTo(@TempDir Path dir) throws Exception {
+        Stylist stylist = Stylist.compact();
+        Path file = stylist.formatTo(stylist.compile(Buttons.class, Forms.class), dir.resolve("style.css"));
+
+        assert Files.readString(file).contains(Forms.input.selector() + "{display:none;}");
+    }
+
+    /**
+     * Styles.
+     */
+    public static class Buttons implements StyleDSL {
+
+        public static Style button = () -> {
+            display.block();
+        };
+
+        public static Style large = () -> {
+            display.block().width(100, px);
+        };
+
+        public static ValueStyle<Size> size = value -> {
+            display.height(value.height, px);
+        };
+    }
+
+    /**
+     * Styles.
+     */
+    public static class Forms implements StyleDSL {
+
+        public static Style input = () -> {
+            display.none();
+        };
+    }
+
+    /**
+     * Sizes.
+     */
+    public enum Size {
+        Small(10), Large(20);
+
+        private final int height;
+
+        private Size(int height) {
+            this.height = height;
+        }
+    }
+}
\ No newline at end of file
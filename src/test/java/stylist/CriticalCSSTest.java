@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CriticalCSSTest extends StyleTester {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void split() throws Exception {
+        Style used = Style.named(".used", () -> {
+            display.block();
+
+            $.hover(() -> {
+                display.none();
+            });
+        });
+
+        Style unused = Style.named(".unused", () -> {
+            display.block();
+        });
+
+        Path html = dir.resolve("index.html");
+        Files.writeString(html, "<html><body><div class='used'></div></body></html>");
+
+        CriticalCSS css = Stylist.compact().styles(used, unused).critical(html);
+        assert css.critical.contains(".used{display:block;}");
+        assert css.critical.contains(".used:hover{display:none;}");
+        assert css.critical.contains(".unused") == false;
+        assert css.deferred.equals(".unused{display:block;}");
+    }
+
+    @Test
+    void multipleSnapshots() throws Exception {
+        Style one = Style.named(".one", () -> {
+            display.block();
+        });
+
+        Style two = Style.named(".two", () -> {
+            display.block();
+        });
+
+        Path first = dir.resolve("first.html");
+        Files.writeString(first, "<div class='one'></div>");
+        Path second = dir.resolve("second.html");
+        Files.writeString(second, "<div class='two'></div>");
+
+        CriticalCSS css = Stylist.compact().styles(one, two).critical(first, second);
+        assert css.critical.contains(".one{");
+        assert css.critical.contains(".two{");
+        assert css.deferred.isEmpty();
+    }
+
+    @Test
+    void large() {
+        List<Style> styles = new ArrayList();
+        for (int i = 0; i < 5000; i++) {
+            int id = i;
+            styles.add(Style.named(".large" + id, () -> {
+                font.size(id, px);
+            }));
+        }
+
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 0; i < 20000; i++) {
+            html.append("<div class='item large").append(i % 2500).append("'><span>text</span></div>");
+        }
+        html.append("</body></html>");
+
+        CriticalCSS css = Stylist.compact().styles(styles.toArray(new Style[0])).critical(List.of(new HTMLSnapshot(html.toString())));
+        assert css.critical.contains(".large2499{");
+        assert css.critical.contains(".large2500{") == false;
+        assert css.deferred.contains(".large2500{");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import org.junit.jupiter.api.Test;
+
+class FragmentCacheTest extends StyleTester {
+
+    @Test
+    void rule() {
+        FragmentCache cache = new FragmentCache(10);
+        Stylist formatter = Stylist.compact().cache(cache);
+        StyleRule rule = StyleRule.create(() -> {
+            display.block();
+        });
+
+        String text = formatter.format(rule);
+        assert cache.misses() == 1;
+        assert cache.hits() == 0;
+
+        assert formatter.format(rule).equals(text);
+        assert cache.misses() == 1;
+        assert cache.hits() == 1;
+    }
+
+    @Test
+    void reevaluatedRule() {
+        FragmentCache cache = new FragmentCache(10);
+        Stylist formatter = Stylist.compact().cache(cache);
+        Style style = () -> {
+            display.block();
+        };
+
+        String text = formatter.format(StyleRule.create(style));
+        assert formatter.format(StyleRule.create(style)).equals(text);
+        assert cache.size() == 1;
+        assert cache.hits() == 1;
+    }
+
+    @Test
+    void sameStyleDifferentRules() {
+        FragmentCache cache = new FragmentCache(10);
+        Stylist formatter = Stylist.compact().cache(cache);
+        Style style = () -> {
+            display.block();
+        };
+
+        StyleRule changed = StyleRule.create(style);
+        changed.properties.set("color", "red");
+
+        String text = formatter.format(StyleRule.create(style));
+        assert formatter.format(changed).contains("color:red");
+        assert formatter.format(StyleRule.create(style)).equals(text);
+        assert cache.size() == 2;
+    }
+
+    @Test
+    void configurationUpdate() {
+        FragmentCache cache = new FragmentCache(10);
+        Stylist formatter = Stylist.compact().cache(cache);
+        StyleRule rule = StyleRule.create(() -> {
+            display.block();
+        });
+
+        String compact = formatter.format(rule);
+        assert formatter.propertyLine("\n").format(rule).equals(compact) == false;
+        assert cache.misses() == 2;
+    }
+
+    @Test
+    void profile() {
+        FragmentCache cache = new FragmentCache(10);
+        StyleRule rule = StyleRule.create(() -> {
+            display.block();
+        });
+
+        String compact = Stylist.compact().cache(cache).format(rule);
+        String pretty = Stylist.pretty().cache(cache).format(rule);
+        assert compact.equals(pretty) == false;
+        assert cache.size() == 2;
+
+        assert Stylist.compact().cache(cache).format(rule).equals(compact);
+        assert Stylist.pretty().cache(cache).format(rule).equals(pretty);
+        assert Stylist.compact().propertyLine("\n").cache(cache).format(rule).equals(compact) == false;
+        assert cache.hits() == 2;
+        assert cache.misses() == 3;
+    }
+
+    @Test
+    void styles() {
+        FragmentCache cache = new FragmentCache(10);
+        Style style = () -> {
+            display.block();
+        };
+
+        String text = Stylist.compact().styles(style).cache(cache).format();
+        assert text.equals(Stylist.compact().styles(style).format());
+        assert cache.misses() == 1;
+
+        assert Stylist.compact().styles(style).cache(cache).format().equals(text);
+        assert cache.hits() == 1;
+    }
+
+    @Test
+    void bounded() {
+        FragmentCache cache = new FragmentCache(2);
+        Stylist formatter = Stylist.compact().cache(cache);
+
+        for (int i = 0; i < 5; i++) {
+            int width = i;
+            formatter.format(StyleRule.create(() -> {
+                display.width(width, px);
+            }));
+        }
+        assert cache.size() == 2;
+    }
+
+    @Test
+    void invalidate() {
+        FragmentCache cache = new FragmentCache(10);
+        Style style = () -> {
+            display.block();
+        };
+        Stylist formatter = Stylist.compact().styles(style).cache(cache);
+
+        formatter.format();
+        assert cache.size() == 1;
+
+        cache.invalidate(style);
+        assert cache.size() == 0;
+
+        formatter.format();
+        assert cache.misses() == 2;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IdAllocationTest {
+
+    @Test
+    void rank() {
+        Map<String, String> ranked = IdAllocation.rank(Map.of("a.B#rare", 1L, "a.B#frequent", 100L, "a.B#normal", 10L));
+
+        assert ranked.get("a.B#frequent").length() <= ranked.get("a.B#normal").length();
+        assert ranked.get("a.B#frequent").compareTo(ranked.get("a.B#normal")) < 0;
+        assert ranked.get("a.B#normal").compareTo(ranked.get("a.B#rare")) < 0;
+    }
+
+    @Test
+    void rankIgnoresUnstableDetail() {
+        Map<String, String> ranked = IdAllocation.rank(Map.of("12345", 100L));
+
+        assert ranked.containsKey("12345") == false;
+    }
+
+    @Test
+    void rankKeepsInstalledMapping() {
+        IdAllocation.install(Map.of("a.Stable#first", "stableFirst"));
+
+        Map<String, String> ranked = IdAllocation.rank(Map.of("a.Stable#first", 1L, "a.Stable#second", 100L));
+        assert ranked.get("a.Stable#first").equals("stableFirst");
+        assert ranked.get("a.Stable#second").equals("stableFirst") == false;
+    }
+
+    @Test
+    void saveAndLoad(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("ids.txt");
+        IdAllocation.save(file, Map.of("a.Saved#one", "savedOne", "a.Saved#two", "savedTwo"));
+
+        assert Files.readString(file).equals("savedOne\ta.Saved#one\nsavedTwo\ta.Saved#two\n");
+
+        IdAllocation.load(file);
+        assert IdAllocation.mapping().get("a.Saved#one").equals("savedOne");
+        assert IdAllocation.mapping().get("a.Saved#two").equals("savedTwo");
+    }
+
+    @Test
+    void mapped() {
+        IdAllocation.install(Map.of(Mapped.style.detail(), "mappedStyle"));
+
+        assert Mapped.style.selector().equals(".mappedStyle");
+        assert Mapped.style.className()[0].equals("mappedStyle");
+    }
+
+    @Test
+    void reserved() {
+        IdAllocation.install(Map.of("a.Reserved#one", "reservedName"));
+
+        assert IdAllocation.isReserved("reservedName");
+        assert IdAllocation.isReserved("notReservedName") == false;
+    }
+
+    @Test
+    void installSkipsAllocatedName() {
+        String allocated = Allocated.style.className()[0];
+
+        Set<String> skipped = IdAllocation.install(Map.of("a.Conflict#one", allocated));
+        assert skipped.equals(Set.of("a.Conflict#one"));
+        assert IdAllocation.mapping().containsKey("a.Conflict#one") == false;
+
+        // the same style can be installed again
+        assert IdAllocation.install(Map.of(Allocated.style.detail(), allocated)).isEmpty();
+    }
+
+    @Test
+    void installSkipsInstalledName() {
+        IdAllocation.install(Map.of("a.Installed#one", "installedName"));
+
+        assert IdAllocation.install(Map.of("a.Installed#two", "installedName")).equals(Set.of("a.Installed#two"));
+        assert IdAllocation.mapping().get("a.Installed#one").equals("installedName");
+    }
+
+    @Test
+    void installRejectsDuplicatedName() {
+        boolean thrown = false;
+        try {
+            IdAllocation.install(Map.of("a.Duplicated#one", "duplicatedName", "a.Duplicated#two", "duplicatedName"));
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assert thrown;
+        assert IdAllocation.isReserved("duplicatedName") == false;
+    }
+
+    @Test
+    void stable() {
+        assert IdAllocation.isStable("a.Stable#field");
+        assert IdAllocation.isStable("a.Stable$Inner#field");
+        assert IdAllocation.isStable("a.Stable#field(Size#Small)");
+        assert IdAllocation.isStable("a.Stable#field(#ff0000)") == false;
+        assert IdAllocation.isStable("a.Stable#field(rgb(0, 0, 0))") == false;
+        assert IdAllocation.isStable("a.Stable#lambda$static$0") == false;
+        assert IdAllocation.isStable("12345") == false;
+        assert IdAllocation.isStable(null) == false;
+    }
+
+    @Test
+    void hash() {
+        assert IdAllocation.hash("a.B#c").equals(IdAllocation.hash("a.B#c"));
+        assert IdAllocation.hash("a.B#c").equals(IdAllocation.hash("a.B#d")) == false;
+        assert IdAllocation.hash("a.B#c").length() == 8;
+        assert IdAllocation.hash("").length() == 8;
+    }
+
+    @Test
+    void deterministic() {
+        IdAllocation.deterministic(true);
+        try {
+            assert Hashed.style.selector().equals("." + IdAllocation.hash(Hashed.style.detail()));
+        } finally {
+            IdAllocation.deterministic(false);
+        }
+    }
+
+    @Test
+    void deterministicSameDetail() {
+        Style one = new Detailed("a.Collision#same");
+        Style other = new Detailed("a.Collision#same");
+
+        IdAllocation.deterministic(true);
+        try {
+            String name = IdAllocation.predefined(one);
+            assert name.equals(IdAllocation.hash("a.Collision#same"));
+            assert IdAllocation.predefined(other).equals(name);
+            assert IdAllocation.isReserved(name);
+        } finally {
+            IdAllocation.deterministic(false);
+        }
+    }
+
+    @Test
+    void deterministicCollision() {
+        // these details have the same hash
+        Style one = new Detailed("a.Collision#s22368859");
+        Style other = new Detailed("a.Collision#s52762306");
+        assert IdAllocation.hash(one.detail()).equals(IdAllocation.hash(other.detail()));
+
+        IdAllocation.deterministic(true);
+        try {
+            IdAllocation.predefined(one);
+
+            boolean thrown = false;
+            try {
+                IdAllocation.predefined(other);
+            } catch (IllegalStateException e) {
+                thrown = e.getMessage().contains(one.detail()) && e.getMessage().contains(other.detail());
+            }
+            assert thrown;
+        } finally {
+            IdAllocation.deterministic(false);
+        }
+    }
+
+    @Test
+    void deterministicCollisionWithInstalledName() {
+        Style style = new Detailed("a.Collision#installed");
+        IdAllocation.install(Map.of("a.Collision#other", IdAllocation.hash(style.detail())));
+
+        IdAllocation.deterministic(true);
+        try {
+            boolean thrown = false;
+            try {
+                IdAllocation.predefined(style);
+            } catch (IllegalStateException e) {
+                thrown = e.getMessage().contains("a.Collision#other");
+            }
+            assert thrown;
+        } finally {
+            IdAllocation.deterministic(false);
+        }
+    }
+
+    @Test
+    void deterministicUnstableDetail() {
+        Style style = new Detailed("a.Unstable#lambda$static$0");
+
+        IdAllocation.deterministic(true);
+        try {
+            boolean thrown = false;
+            try {
+                style.selector();
+            } catch (IllegalStateException e) {
+                thrown = e.getMessage().contains(style.detail());
+            }
+            assert thrown;
+        } finally {
+            IdAllocation.deterministic(false);
+        }
+        assert style.selector().startsWith(".");
+    }
+
+    @Test
+    void notDeterministic() {
+        assert IdAllocation.predefined(new Detailed("a.NotDeterministic#style")) == null;
+    }
+
+    /**
+     * The style which has the specified detail.
+     */
+    private static class Detailed implements Style {
+
+        private final String detail;
+
+        private Detailed(String detail) {
+            this.detail = detail;
+        }
+
+        @Override
+        public void style() {
+        }
+
+        @Override
+        public String detail() {
+            return detail;
+        }
+    }
+
+    /**
+     * The style holder which is not declarable, so its class name is not allocated eagerly.
+     */
+    private static class Hashed {
+
+        static Style style = () -> {
+        };
+    }
+
+    /**
+     * The style holder which is not declarable, so its class name is not allocated eagerly.
+     */
+    private static class Mapped {
+
+        static Style style = () -> {
+        };
+    }
+
+    /**
+     * The style holder which is not declarable, so its class name is not allocated eagerly.
+     */
+    private static class Allocated {
+
+        static Style style = () -> {
+        };
+    }
+}
\ No newline at end of file
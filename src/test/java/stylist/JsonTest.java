@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class JsonTest {
+
+    @Test
+    void quote() {
+        assert Json.quote("text").equals("\"text\"");
+        assert Json.quote("a\"b").equals("\"a\\\"b\"");
+        assert Json.quote("a\\b").equals("\"a\\\\b\"");
+        assert Json.quote("a\nb\tc\rd").equals("\"a\\nb\\tc\\rd\"");
+        assert Json.quote("\u0001").equals("\"\\u0001\"");
+        assert Json.quote("日本").equals("\"日本\"");
+    }
+
+    @Test
+    void roundTripText() {
+        for (String text : List.of("", "plain", "\"quoted\"", "back\\slash", "\\\"", "end\\", "line\nbreak", "\u0000\u001f", "日本語", "a: \"b\", c")) {
+            assert Json.parse(Json.quote(text)).equals(text) : text;
+        }
+    }
+
+    @Test
+    void roundTripObject() {
+        Map<String, Object> map = new LinkedHashMap();
+        map.put("style.css", "style.0123.css");
+        map.put("key \"with\" quote", "value \\ with \\ backslash");
+        map.put("list", List.of("a", "b\"c"));
+        map.put("empty", List.of());
+        map.put("number", 10L);
+        map.put("bool", true);
+        map.put("null", null);
+        map.put("objects", List.of(Map.of("name", "x\ny")));
+
+        assert Json.parse(Json.write(map)).equals(map);
+    }
+
+    @Test
+    void write() {
+        Map<String, Object> map = new LinkedHashMap();
+        map.put("a", List.of("x", "y"));
+        map.put("b", "z");
+
+        assert Json.write(map).equals("{\n  \"a\": [\"x\", \"y\"],\n  \"b\": \"z\"\n}");
+        assert Json.write(Map.of()).equals("{}");
+        assert Json.write(Map.of("list", List.of(Map.of("k", 1L)))).equals("{\n  \"list\": [\n    {\"k\": 1}\n  ]\n}");
+    }
+
+    @Test
+    void parse() {
+        assert Json.parse(" { \"a\" : [ 1 , -2.5e1 , true , false , null ] } ").equals(Map.of("a", Arrays.asList(1L, -25.0, true, false, null)));
+        assert Json.parse("\"\\u0041\\/\"").equals("A/");
+        assert Json.parse("[]").equals(List.of());
+        assert Json.parse("{}").equals(Map.of());
+    }
+
+    @Test
+    void parseInvalid() {
+        for (String text : List.of("", "{", "[1,]", "{\"a\" 1}", "\"open", "\"\\x\"", "tru", "01", "{} {}", "{a: 1}", "\"line\nbreak\"")) {
+            boolean thrown = false;
+            try {
+                Json.parse(text);
+            } catch (IllegalArgumentException e) {
+                thrown = true;
+            }
+            assert thrown : text;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import stylist.value.Numeric;
+
+class MediaTest extends StyleTester {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void media() {
+        ValidatableStyle parsed = writeStyle(() -> {
+            display.block();
+
+            $.media("print", () -> {
+                display.none();
+            });
+        });
+
+        StyleRule rule = parsed.rules.children.get(0);
+        assert parsed.rules.media == null;
+        assert rule.media.equals("print");
+        assert rule.selector.toString().equals(parsed.selector());
+    }
+
+    @Test
+    void nested() {
+        ValidatableStyle parsed = writeStyle(() -> {
+            $.minWidth(Numeric.of(768, px), () -> {
+                $.maxWidth(Numeric.of(1024, px), () -> {
+                    display.none();
+                });
+
+                $.hover(() -> {
+                    display.block();
+                });
+            });
+        });
+
+        StyleRule rule = parsed.rules.children.get(0);
+        assert rule.media.equals("(min-width:768px)");
+        assert rule.children.get(0).media.equals("(min-width:768px) and (max-width:1024px)");
+        assert rule.children.get(1).media.equals("(min-width:768px)");
+        assert rule.children.get(1).selector.toString().equals(parsed.selector() + ":hover");
+    }
+
+    @Test
+    void nestedList() {
+        assert StyleRule.narrow("screen, print", "(min-width:600px)").equals("screen and (min-width:600px), print and (min-width:600px)");
+        assert StyleRule.narrow("(min-width:600px)", "screen, print").equals("screen and (min-width:600px), print and (min-width:600px)");
+        assert StyleRule.narrow("(min-width:1px), (orientation:portrait)", "(max-width:2px), print")
+                .equals("(min-width:1px) and (max-width:2px), print and (min-width:1px), (orientation:portrait) and (max-width:2px), print and (orientation:portrait)");
+    }
+
+    @Test
+    void nestedListStyle() {
+        ValidatableStyle parsed = writeStyle(() -> {
+            $.media("screen, print", () -> {
+                $.minWidth(Numeric.of(600, px), () -> {
+                    display.none();
+                });
+            });
+        });
+
+        assert parsed.rules.children.get(0).children.get(0).media.equals("screen and (min-width:600px), print and (min-width:600px)");
+    }
+
+    @Test
+    void nestedType() {
+        assert StyleRule.narrow("screen and (min-width:1px)", "(max-width:2px)").equals("screen and (min-width:1px) and (max-width:2px)");
+        assert StyleRule.narrow("(min-width:1px)", "print and (color)").equals("print and (min-width:1px) and (color)");
+        assert StyleRule.narrow("only screen", "screen and (color)").equals("only screen and (color)");
+        assert StyleRule.narrow("all", "print").equals("print");
+    }
+
+    @Test
+    void nestedConflictingType() {
+        try {
+            StyleRule.narrow("screen", "print");
+            throw new AssertionError();
+        } catch (IllegalArgumentException e) {
+            // success
+        }
+    }
+
+    @Test
+    void nestedNegation() {
+        try {
+            StyleRule.narrow("not print", "(min-width:1px)");
+            throw new AssertionError();
+        } catch (IllegalArgumentException e) {
+            // success
+        }
+    }
+
+    @Test
+    void emptyQuery() {
+        try {
+            writeStyle(() -> {
+                $.media(" ", () -> {
+                    display.none();
+                });
+            });
+            throw new AssertionError();
+        } catch (IllegalArgumentException e) {
+            // success
+        }
+    }
+
+    @Test
+    void format() {
+        Style style = () -> {
+            display.block();
+
+            $.media("print", () -> {
+                display.none();
+            });
+        };
+
+        String selector = style.selector();
+        assert Stylist.compact().format(StyleRule.create(style)).equals(selector + "{display:block;}@media print{" + selector + "{display:none;}}");
+    }
+
+    @Test
+    void bucket() {
+        String formatted = Stylist.compact().styles(Responsive.class).format();
+        String one = Responsive.one.selector();
+        String other = Responsive.other.selector();
+
+        assert formatted.equals(one + "{display:block;}" + other + "{display:inline;}@media print{" + one + "{display:none;}" + other + "{display:none;}}@media (min-width:768px){" + one + "{display:flex;}}");
+    }
+
+    @Test
+    void bucketByGroup() {
+        String formatted = Stylist.compact().styles(Responsive.class).groupSelector(true).format();
+        String one = Responsive.one.selector();
+        String other = Responsive.other.selector();
+
+        assert formatted.contains("@media print{" + one + "{display:none;}" + other + "{display:none;}}");
+        assert formatted.indexOf("@media") == formatted.lastIndexOf("@media print");
+    }
+
+    @Test
+    void bucketByCache() {
+        Stylist stylist = Stylist.compact().styles(Responsive.class).cache(new FragmentCache(10));
+        String formatted = stylist.format();
+
+        assert formatted.equals(Stylist.compact().styles(Responsive.class).format());
+        assert formatted.equals(stylist.format());
+    }
+
+    @Test
+    void bucketInParallel() {
+        String formatted = Stylist.compact().styles(Responsive.class).parallel(true).format();
+
+        assert formatted.equals(Stylist.compact().styles(Responsive.class).format());
+    }
+
+    @Test
+    void formatMedia() {
+        Map<String, String> files = Stylist.compact().styles(Responsive.class).formatMedia();
+        String one = Responsive.one.selector();
+        String other = Responsive.other.selector();
+
+        assert files.get("all.css").equals(one + "{display:block;}" + other + "{display:inline;}");
+        assert files.get("print.css").equals(one + "{display:none;}" + other + "{display:none;}");
+        assert files.get("min-width-768px.css").equals(one + "{display:flex;}");
+        assert files.get("media.json").contains("\"print.css\": \"print\"");
+        assert files.get("media.json").contains("\"min-width-768px.css\": \"(min-width:768px)\"");
+    }
+
+    @Test
+    void formatMediaTo() throws Exception {
+        Path manifest = Stylist.compact().styles(Responsive.class).formatMediaTo(dir);
+
+        assert Files.readString(manifest).contains("\"all.css\": \"all\"");
+        assert Files.readString(dir.resolve("print.css")).contains(Responsive.other.selector());
+    }
+
+    /**
+     * Responsive styles.
+     */
+    public static class Responsive implements StyleDSL {
+
+        public static Style one = () -> {
+            display.block();
+
+            $.media("print", () -> {
+                display.none();
+            });
+
+            $.minWidth(Numeric.of(768, px), () -> {
+                display.flex();
+            });
+        };
+
+        public static Style other = () -> {
+            display.inline();
+
+            $.media("print", () -> {
+                display.none();
+            });
+        };
+    }
+}
\ No newline at end of file
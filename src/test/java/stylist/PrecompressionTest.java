@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PrecompressionTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void gzip() throws Exception {
+        String text = text(1000);
+        Path file = write(text, new Precompression());
+
+        assert Files.readString(file).equals(text);
+        assert gunzip(file.resolveSibling("test.css.gz")).equals(text);
+        assert Files.notExists(file.resolveSibling("test.css.deflate"));
+    }
+
+    @Test
+    void deflate() throws Exception {
+        String text = text(1000);
+        Path file = write(text, new Precompression().deflate(true));
+
+        assert inflate(file.resolveSibling("test.css.deflate"), null).equals(text);
+    }
+
+    @Test
+    void dictionary() throws Exception {
+        String dictionary = "display:block;font-size:";
+        String text = text(10);
+        Precompression compression = new Precompression().deflate(true).dictionary(dictionary);
+        Path file = write(text, compression);
+
+        assert inflate(file.resolveSibling("test.css.deflate"), dictionary).equals(text);
+        assert gunzip(file.resolveSibling("test.css.gz")).equals(text);
+    }
+
+    @Test
+    void openFailure() throws Exception {
+        Path file = dir.resolve("failure.css");
+        Files.createDirectories(file.resolveSibling("failure.css.deflate"));
+
+        boolean thrown = false;
+        try {
+            new Precompression().deflate(true).open(file);
+        } catch (IOException e) {
+            thrown = true;
+        }
+        assert thrown;
+
+        // the opened gzip variant is released
+        Files.delete(file.resolveSibling("failure.css.gz"));
+    }
+
+    @Test
+    void level() throws Exception {
+        String text = text(5000);
+
+        Precompression stored = new Precompression().level(0);
+        write(text, stored);
+        long storedSize = stored.size(dir.resolve("test.css.gz"));
+
+        Precompression best = new Precompression().level(9);
+        write(text, best);
+        long bestSize = best.size(dir.resolve("test.css.gz"));
+
+        assert bestSize < storedSize;
+        assert gunzip(dir.resolve("test.css.gz")).equals(text);
+    }
+
+    @Test
+    void invalidLevel() {
+        try {
+            new Precompression().level(10);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            // success
+        }
+    }
+
+    @Test
+    void sizes() throws Exception {
+        String text = text(1000);
+        Precompression compression = new Precompression().deflate(true);
+        Path file = write(text, compression);
+
+        assert compression.size(file) == Files.size(file);
+        assert compression.size(file.resolveSibling("test.css.gz")) == Files.size(file.resolveSibling("test.css.gz"));
+        assert compression.size(file.resolveSibling("test.css.deflate")) == Files.size(file.resolveSibling("test.css.deflate"));
+        assert compression.size(file.resolveSibling("test.css.gz")) < compression.size(file);
+        assert compression.sizes().size() == 3;
+    }
+
+    @Test
+    void empty() throws Exception {
+        Path file = write("", new Precompression());
+
+        assert gunzip(file.resolveSibling("test.css.gz")).isEmpty();
+    }
+
+    @Test
+    void stylist() throws Exception {
+        Style style = Style.named(".precompress", () -> {
+        });
+
+        Precompression compression = new Precompression();
+        Path file = Stylist.compact().styles(style).showEmptyStyle(true).precompress(compression).formatTo(dir.resolve("style.css"));
+
+        assert gunzip(file.resolveSibling("style.css.gz")).equals(Files.readString(file));
+    }
+
+    /**
+     * Build the test text.
+     * 
+     * @param size
+     * @return
+     */
+    private String text(int size) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            builder.append(".A").append(i).append("{display:block;font-size:").append(i % 17).append("px;content:\"ä😀\";}");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Write the text with compression.
+     * 
+     * @param text
+     * @param compression
+     * @return
+     */
+    private Path write(String text, Precompression compression) throws IOException {
+        Path file = dir.resolve("test.css");
+
+        try (ChannelWriter writer = new ChannelWriter(file, compression)) {
+            writer.append(text);
+        }
+        return file;
+    }
+
+    /**
+     * Decompress gzip file.
+     * 
+     * @param file
+     * @return
+     */
+    private String gunzip(Path file) throws IOException {
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Decompress raw deflate file.
+     * 
+     * @param file
+     * @param dictionary
+     * @return
+     */
+    private String inflate(Path file, String dictionary) throws Exception {
+        Inflater inflater = new Inflater(true);
+        if (dictionary != null) {
+            inflater.setDictionary(dictionary.getBytes(StandardCharsets.UTF_8));
+        }
+        inflater.setInput(Files.readAllBytes(file));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        while (inflater.finished() == false) {
+            int size = inflater.inflate(buffer);
+            output.write(buffer, 0, size);
+        }
+        inflater.end();
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
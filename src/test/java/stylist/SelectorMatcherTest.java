@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SelectorMatcherTest {
+
+    private static final String html = "<!DOCTYPE html><html><body>" //
+            + "<div id='main' class='box large'>" //
+            + "<p class=text>one</p>" //
+            + "<p class='text second'>two</p>" //
+            + "<img src=a.png alt=\"image\">" //
+            + "<span data-kind=\"a-b\"></span>" //
+            + "</div>" //
+            + "<!-- <div class='comment'></div> -->" //
+            + "<script>var text = '<div class=\"script\"></div>';</script>" //
+            + "</body></html>";
+
+    /**
+     * Test whether the selector matches any element in the test document.
+     * 
+     * @param selector
+     * @return
+     */
+    private boolean matches(String selector) {
+        SelectorMatcher.Index index = new SelectorMatcher.Index(List.of(selector));
+        index.scan(new HTMLSnapshot(html));
+
+        return index.isMatched(0);
+    }
+
+    @Test
+    void simple() {
+        assert matches("div");
+        assert matches(".box");
+        assert matches("#main");
+        assert matches("*");
+        assert matches("div.box.large");
+        assert matches("table") == false;
+        assert matches(".none") == false;
+        assert matches("#none") == false;
+        assert matches("span.box") == false;
+    }
+
+    @Test
+    void ignoreCommentAndScript() {
+        assert matches(".comment") == false;
+        assert matches(".script") == false;
+    }
+
+    @Test
+    void combinator() {
+        assert matches("body .text");
+        assert matches(".box > .text");
+        assert matches("body > .text") == false;
+        assert matches(".text + .second");
+        assert matches(".text + span") == false;
+        assert matches(".text ~ img");
+        assert matches("img ~ .text") == false;
+    }
+
+    @Test
+    void attribute() {
+        assert matches("[src]");
+        assert matches("[alt=image]");
+        assert matches("[alt='IMAGE' i]");
+        assert matches("[alt='IMAGE']") == false;
+        assert matches("[src$='.png']");
+        assert matches("[src^=a]");
+        assert matches("[data-kind|=a]");
+        assert matches("[class~=large]");
+        assert matches("[alt*=mag]");
+    }
+
+    @Test
+    void structural() {
+        assert matches(".text:first-child");
+        assert matches(".second:first-child") == false;
+        assert matches("span:last-child");
+        assert matches("p:nth-child(2)");
+        assert matches("img:nth-child(2n+1)");
+        assert matches("img:nth-of-type(1)");
+        assert matches("p:nth-last-of-type(2)");
+        assert matches("p:only-of-type") == false;
+        assert matches("span:empty");
+        assert matches("p:empty") == false;
+        assert matches("html:root");
+        assert matches("body:root") == false;
+    }
+
+    @Test
+    void stateDependent() {
+        assert matches(".text:hover");
+        assert matches(".box:focus-within .text");
+        assert matches(".text::before");
+        assert matches(".none:hover") == false;
+    }
+
+    @Test
+    void negation() {
+        assert matches("p:not(.second)");
+        assert matches("span:not(:empty)") == false;
+        assert matches("p:not(:hover)");
+        assert matches(".second:not(.text)") == false;
+    }
+
+    @Test
+    void list() {
+        assert matches(".none, .text");
+        assert matches(".none, .other") == false;
+        assert matches(":is(.none, .text)");
+    }
+
+    @Test
+    void unparsable() {
+        assert matches("@media print");
+        assert matches("[broken");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import org.junit.jupiter.api.Test;
+
+class ShorthandTest extends StyleTester {
+
+    @Test
+    void marginOne() {
+        ValidatableStyle parsed = writeStyle(() -> {
+            margin.size(1, px);
+        }, Shorthand::compact);
+
+        assert parsed.property("margin", "1px");
+        assert parsed.rules.properties.size() == 1;
+    }
+
+    @Test
+    void marginTwo() {
+        ValidatableStyle parsed = writeStyle(() -> {
+            margin.vertical(1, px).horizontal(2, px);
+        }, Shorthand::compact);
+
+        assert parsed.property("margin", "1px 2px");
+    }
+
+    @Test
+    void marginThree() {
+        ValidatableStyle parsed = writeStyle(() -> {
+            margin.top(1, px).horizontal(2, px).bottom(3, px);
+        }, Shorthand::compact);
+
+        assert parsed.property("margin", "1px 2px 3px");
+    }
+
+    @Test
+    void marginFour() {
+        ValidatableStyle parsed = writeStyle(() -> {
+            margin.top(1, px).right(2, px).bottom(3, px).left(4, px);
+        }, Shorthand::compact);
+
+        assert parsed.property("margin", "1px 2px 3px 4px");
+    }
+
+    @Test
+    void partial() {
+        ValidatableStyle parsed = writeStyle(() -> {
+            margin.top(1, px).right(2, px).bottom(3, px);
+        }, Shorthand::compact);
+
+        assert parsed.rules.properties.name("margin") == -1;
+        assert parsed.rules.properties.size() == 3;
+    }
+
+    @Test
+    void position() {
+        ValidatableStyle parsed = writeStyle(() -> {
+            display.block();
+            padding.size(1, px);
+            display.width(10, px);
+        }, Shorthand::compact);
+
+        assert parsed.rules.properties.name(0).match("display");
+        assert parsed.rules.properties.name(1).match("padding");
+        assert parsed.rules.properties.name(2).match("width");
+    }
+
+    @Test
+    void keyword() {
+        Properties properties = new Properties();
+        properties.set("margin-top", "inherit");
+        properties.set("margin-right", "1px");
+        properties.set("margin-bottom", "inherit");
+        properties.set("margin-left", "1px");
+        Shorthand.compact(properties);
+        assert properties.size() == 4;
+
+        properties = new Properties();
+        properties.set("margin-top", "inherit");
+        properties.set("margin-right", "inherit");
+        properties.set("margin-bottom", "inherit");
+        properties.set("margin-left", "inherit");
+        Shorthand.compact(properties);
+        assert properties.is("margin", "inherit");
+    }
+
+    @Test
+    void relatedPropertyBetweenLonghands() {
+        Properties properties = new Properties();
+        properties.set("margin-top", "1px");
+        properties.set("margin-right", "1px");
+        properties.set("margin-inline-start", "2px");
+        properties.set("margin-bottom", "1px");
+        properties.set("margin-left", "1px");
+        Shorthand.compact(properties);
+
+        assert properties.size() == 5;
+    }
+
+    @Test
+    void borderRadius() {
+        ValidatableStyle parsed = writeStyle(() -> {
+            border.top.radius(1, px);
+            border.bottom.radius(1, px);
+            border.left.radius(2, px);
+            border.right.radius(2, px);
+        }, Shorthand::compact);
+
+        assert parsed.property("border-radius", "2px 1px");
+    }
+
+    @Test
+    void borderRadiusElliptical() {
+        Properties properties = new Properties();
+        properties.set("border-top-left-radius", "1px 2px");
+        properties.set("border-top-right-radius", "1px");
+        properties.set("border-bottom-right-radius", "1px");
+        properties.set("border-bottom-left-radius", "1px");
+        Shorthand.compact(properties);
+
+        assert properties.name("border-radius") == -1;
+        assert properties.size() == 4;
+    }
+
+    @Test
+    void borderColorFunction() {
+        Properties properties = new Properties();
+        properties.set("border-top-color", "rgb(0, 0, 0)");
+        properties.set("border-right-color", "rgb(0, 0, 0)");
+        properties.set("border-bottom-color", "rgb(0, 0, 0)");
+        properties.set("border-left-color", "rgb(0, 0, 0)");
+        Shorthand.compact(properties);
+
+        assert properties.get("border-color").get().toString().equals("rgb(0, 0, 0)");
+        assert properties.size() == 1;
+    }
+
+    @Test
+    void borderWidth() {
+        ValidatableStyle parsed = writeStyle(() -> {
+            border.vertical.width(1, px);
+            border.horizontal.width(2, px);
+        }, Shorthand::compact);
+
+        assert parsed.property("border-width", "1px 2px");
+    }
+
+    @Test
+    void flex() {
+        ValidatableStyle parsed = writeStyle(() -> {
+            flexItem.grow(1).shrink(0).basis(10, px);
+        }, Shorthand::compact);
+
+        assert parsed.property("flex", "1 0 10px");
+        assert parsed.property("-webkit-flex", "1 0 10px");
+    }
+
+    @Test
+    void formatter() {
+        Style style = Style.named(".shorthand", () -> {
+            padding.size(1, px);
+        });
+
+        assert Stylist.compact().styles(style).shorthand(true).format().endsWith(".shorthand{padding:1px;}");
+    }
+
+    @Test
+    void formatterNeverModifiesRule() {
+        StyleRule rule = StyleRule.create(() -> {
+            margin.top(1, px).bottom(1, px).left(1, px).right(1, px);
+        });
+
+        Stylist compacting = Stylist.compact().shorthand(true);
+        String first = compacting.format(rule);
+        assert first.contains("margin:1px;");
+        assert compacting.format(rule).equals(first);
+        assert rule.properties.size() == 4;
+        assert Stylist.compact().format(rule).contains("margin-top:1px;");
+    }
+}
\ No newline at end of file
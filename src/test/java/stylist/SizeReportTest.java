@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SizeReportTest {
+
+    private static final String buttons = Buttons.class.getCanonicalName();
+
+    private static final String forms = Forms.class.getCanonicalName();
+
+    @Test
+    void rules() {
+        SizeReport report = Stylist.compact().styles(Buttons.class, Forms.class).report();
+        String formatted = Stylist.compact().styles(Buttons.class, Forms.class).format();
+
+        assert report.raw() == formatted.length();
+        assert 0 < report.gzip();
+        assert report.rules().size() == 3;
+
+        long sum = 0;
+        for (SizeReport.Cost cost : report.rules()) {
+            assert 0 < cost.raw;
+            assert 0 < cost.gzip;
+            sum += cost.raw;
+        }
+        assert sum == report.raw();
+    }
+
+    @Test
+    void classes() {
+        List<SizeReport.Cost> classes = Stylist.compact().styles(Buttons.class, Forms.class).report().classes();
+
+        assert classes.size() == 2;
+        assert classes.get(0).name.equals(buttons);
+        assert classes.get(0).count == 2;
+        assert classes.get(1).name.equals(forms);
+        assert classes.get(1).count == 1;
+        assert classes.get(1).raw < classes.get(0).raw;
+    }
+
+    @Test
+    void duplicates() {
+        List<SizeReport.Duplicate> duplicates = Stylist.compact().styles(Buttons.class, Forms.class).report().duplicates();
+
+        assert duplicates.size() == 1;
+        assert duplicates.get(0).declaration.equals("display:block");
+        assert duplicates.get(0).selectors.size() == 2;
+        assert duplicates.get(0).waste() == "display:block;".length();
+    }
+
+    @Test
+    void processOnce() {
+        List<Properties> processed = new ArrayList();
+        SizeReport report = Stylist.compact().styles(Buttons.class, Forms.class).postProcessor(processed::add).report();
+
+        assert processed.size() == 3;
+        assert report.duplicates().size() == 1;
+    }
+
+    @Test
+    void budget() {
+        SizeReport report = Stylist.compact().styles(Buttons.class, Forms.class).budget(new SizeBudget().total(1).perClass(1000)).report();
+
+        assert report.violations().size() == 1;
+        assert report.violations().get(0).startsWith("The stylesheet is");
+    }
+
+    @Test
+    void budgetOfClass() {
+        SizeReport report = Stylist.compact().styles(Buttons.class, Forms.class).budget(new SizeBudget().perClass(1000).of(Forms.class, 1)).report();
+
+        assert report.violations().size() == 1;
+        assert report.violations().get(0).contains(forms);
+    }
+
+    @Test
+    void budgetByGzip() {
+        SizeReport report = Stylist.compact().styles(Buttons.class, Forms.class).budget(new SizeBudget().gzip(true).total(1)).report();
+
+        assert report.violations().get(0).contains(report.gzip() + " gzip bytes");
+    }
+
+    @Test
+    void strictBudget() {
+        try {
+            Stylist.compact().styles(Buttons.class, Forms.class).budget(new SizeBudget().total(1).strict(true)).report();
+            throw new AssertionError();
+        } catch (IllegalStateException e) {
+            assert e.getMessage().startsWith("The stylesheet is");
+        }
+    }
+
+    @Test
+    void writeTo(@TempDir Path dir) throws Exception {
+        Path file = Stylist.compact().styles(Buttons.class, Forms.class).budget(new SizeBudget().total(1)).report().writeTo(dir.resolve("report/size.json"));
+        String json = Files.readString(file);
+
+        assert json.startsWith("{\n  \"raw\": ");
+        assert json.contains("\"name\": \"" + buttons + "\"");
+        assert json.contains("\"declaration\": \"display:block\"");
+        assert json.contains("\"violations\": [\"The stylesheet is");
+        assert json.endsWith("]\n}");
+    }
+
+    /**
+     * Styles.
+     */
+    public static class Buttons implements StyleDSL {
+
+        public static Style button = () -> {
+            display.block();
+        };
+
+        public static Style large = () -> {
+            display.block().width(100, px).height(40, px);
+        };
+    }
+
+    /**
+     * Styles.
+     */
+    public static class Forms implements StyleDSL {
+
+        public static Style input = () -> {
+            display.none();
+        };
+    }
+}
\ No newline at end of file
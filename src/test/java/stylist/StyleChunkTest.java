@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StyleChunkTest {
+
+    private static final String buttons = Buttons.class.getCanonicalName();
+
+    private static final String forms = Forms.class.getCanonicalName();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void chunkByDeclaringClass() {
+        Map<String, String> files = Stylist.compact().styles(Buttons.class, Forms.class).formatChunks();
+
+        assert files.get(buttons + ".css").equals(Buttons.button.selector() + "{display:block;}");
+        assert files.get(forms + ".css").equals(Forms.input.selector() + "{display:none;}");
+        assert files.containsKey("shared.css") == false;
+        assert files.get("manifest.json").contains("\"" + buttons + "\": [\"" + buttons + ".css\"]");
+    }
+
+    @Test
+    void userDefinedGroup() {
+        Map<String, String> files = Stylist.compact().styles(Buttons.class, Forms.class).chunk("widgets", Buttons.class, Forms.class).formatChunks();
+
+        assert files.get("widgets.css").contains(Buttons.button.selector());
+        assert files.get("widgets.css").contains(Forms.input.selector());
+        assert files.get("manifest.json").equals("{\n  \"widgets\": [\"widgets.css\"]\n}");
+    }
+
+    @Test
+    void shared() {
+        Map<String, String> files = Stylist.compact()
+                .styles(Buttons.class, Forms.class)
+                .chunk("top", Buttons.button)
+                .chunk("settings", Buttons.button)
+                .formatChunks();
+
+        assert files.get("shared.css").equals(Buttons.button.selector() + "{display:block;}");
+        assert files.get(forms + ".css").equals(Forms.input.selector() + "{display:none;}");
+        assert files.get("manifest.json").contains("\"settings\": [\"shared.css\"]");
+        assert files.get("manifest.json").contains("\"top\": [\"shared.css\"]");
+        assert files.get("manifest.json").contains("\"" + forms + "\": [\"shared.css\", \"" + forms + ".css\"]");
+    }
+
+    @Test
+    void sharedIsReserved() {
+        Map<String, String> files = Stylist.compact()
+                .styles(Buttons.class, Forms.class)
+                .chunk("top", Buttons.button)
+                .chunk("settings", Buttons.button)
+                .chunk("shared", Forms.input)
+                .formatChunks();
+
+        assert files.get("shared.css").equals(Buttons.button.selector() + "{display:block;}");
+        assert files.get("shared-2.css").equals(Forms.input.selector() + "{display:none;}");
+        assert files.get("manifest.json").contains("\"shared\": [\"shared.css\", \"shared-2.css\"]");
+    }
+
+    @Test
+    void sanitizedNameCollision() {
+        Map<String, String> files = Stylist.compact()
+                .styles(Buttons.class, Forms.class)
+                .chunk("a b", Buttons.class)
+                .chunk("a_b", Forms.class)
+                .formatChunks();
+
+        assert files.get("a_b.css").equals(Buttons.button.selector() + "{display:block;}");
+        assert files.get("a_b-2.css").equals(Forms.input.selector() + "{display:none;}");
+        assert files.get("manifest.json").contains("\"a b\": [\"a_b.css\"]");
+        assert files.get("manifest.json").contains("\"a_b\": [\"a_b-2.css\"]");
+    }
+
+    @Test
+    void formatChunksTo() throws Exception {
+        Path manifest = Stylist.compact().styles(Buttons.class, Forms.class).formatChunksTo(dir.resolve("css"));
+
+        assert Files.exists(manifest);
+        assert Files.readString(dir.resolve("css/" + buttons + ".css")).contains(Buttons.button.selector());
+        assert Files.readString(dir.resolve("css/" + forms + ".css")).contains(Forms.input.selector());
+    }
+
+    @Test
+    void formatChunksToWithHash() throws Exception {
+        Path manifest = Stylist.compact().styles(Buttons.class, Forms.class).hashFileName(true).formatChunksTo(dir);
+        String text = Files.readString(manifest);
+
+        assert text.contains(buttons + ".css") == false;
+        assert text.matches("(?s).*\"" + buttons.replace(".", "\\.") + "\": \\[\"" + buttons.replace(".", "\\.") + "\\.[0-9a-f]{16}\\.css\"\\].*");
+        assert Files.readString(dir.resolve("assets.json")).contains(buttons + ".css");
+    }
+
+    public static class Buttons implements StyleDSL {
+
+        public static Style button = () -> {
+            display.block();
+        };
+    }
+
+    public static class Forms implements StyleDSL {
+
+        public static Style input = () -> {
+            display.none();
+        };
+    }
+}
\ No newline at end of file
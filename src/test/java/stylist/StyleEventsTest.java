@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class StyleEventsTest {
+
+    @Test
+    void events(@TempDir Path dir) throws Exception {
+        Path output = dir.resolve("style.css");
+        Path dump = dir.resolve("events.jfr");
+
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("stylist.Scan", "stylist.Evaluate", "stylist.PostProcess", "stylist.Output")) {
+                recording.enable(name).withoutThreshold();
+            }
+            recording.start();
+
+            Stylist.compact().styles(Styles.class).postProcessor(properties -> properties.remove("color")).formatTo(output);
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+        RecordedEvent scan = find(events, "stylist.Scan");
+        assert scan.getString("definition").equals(Styles.class.getName());
+        assert scan.getInt("styles") == 1;
+
+        RecordedEvent evaluate = find(events, "stylist.Evaluate");
+        assert evaluate.getString("selector").equals(Styles.style.selector());
+        assert evaluate.getInt("declarations") == 2;
+
+        RecordedEvent process = find(events, "stylist.PostProcess");
+        assert process.getInt("processors") == 1;
+        assert process.getInt("before") == 2;
+        assert process.getInt("after") == 1;
+
+        RecordedEvent write = find(events, "stylist.Output");
+        assert write.getString("file").equals(output.toString());
+        assert write.getLong("bytes") == Files.size(output);
+    }
+
+    @Test
+    void disabled() {
+        StyleEvents.Evaluate event = new StyleEvents.Evaluate();
+
+        assert event.isEnabled() == false;
+        assert event.shouldCommit() == false;
+    }
+
+    /**
+     * Find the first event of the specified type.
+     * 
+     * @param events All recorded events.
+     * @param name An event name.
+     * @return The found event.
+     */
+    private RecordedEvent find(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    /**
+     * Styles.
+     */
+    public static class Styles implements StyleDSL {
+
+        public static Style style = () -> {
+            display.block();
+            font.color("red");
+        };
+    }
+}
\ No newline at end of file
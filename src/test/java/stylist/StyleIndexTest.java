@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import kiss.I;
+
+class StyleIndexTest {
+
+    @Test
+    void write(@TempDir Path dir) throws Exception {
+        Path file = StyleIndex.write(copy(dir));
+
+        assert file.equals(dir.resolve(StyleIndex.Location));
+        assert Files.readString(file).equals(Styles.class.getName() + "\tfirst\tsecond\tsize\n");
+    }
+
+    @Test
+    void read(@TempDir Path dir) throws Exception {
+        StyleIndex.write(copy(dir));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {dir.toUri().toURL()}, null)) {
+            Map<String, List<String>> index = StyleIndex.read(loader);
+
+            assert index.size() == 1;
+            assert index.get(Styles.class.getName()).equals(List.of("first", "second", "size"));
+        }
+    }
+
+    @Test
+    void readNoIndex(@TempDir Path dir) throws Exception {
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {dir.toUri().toURL()}, null)) {
+            assert StyleIndex.read(loader) == null;
+        }
+    }
+
+    @Test
+    void formatUntouched() throws Exception {
+        try (URLClassLoader loader = isolate()) {
+            Class stylist = loader.loadClass(Stylist.class.getName());
+            String formatted = (String) stylist.getMethod("format").invoke(stylist.getMethod("compact").invoke(null));
+
+            assert formatted.contains(selector(loader, Untouched.class, "style") + "{");
+        }
+    }
+
+    @Test
+    void namesNeverDependOnFirstUse() throws Exception {
+        try (URLClassLoader one = isolate(); URLClassLoader other = isolate()) {
+            String untouched = selector(one, Untouched.class, "style");
+            String lazy = selector(one, Lazy.class, "first");
+
+            assert lazy.equals(selector(other, Lazy.class, "first"));
+            assert untouched.equals(selector(other, Untouched.class, "style"));
+        }
+    }
+
+    /**
+     * Create the class loader which has the fresh registry, because the other tests touch the
+     * invalid styles and the registry is shared in the same class loader.
+     * 
+     * @return The isolated class loader.
+     */
+    private URLClassLoader isolate() throws Exception {
+        Class[] types = {I.class, Stylist.class, StyleIndexTest.class, Test.class};
+        URL[] urls = new URL[types.length];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = types[i].getProtectionDomain().getCodeSource().getLocation();
+        }
+
+        URLClassLoader loader = new URLClassLoader(urls, ClassLoader.getPlatformClassLoader());
+        loader.loadClass(I.class.getName()).getMethod("load", Class.class).invoke(null, loader.loadClass(StyleIndexTest.class.getName()));
+        return loader;
+    }
+
+    /**
+     * Compute the selector of the style in the isolated class loader.
+     * 
+     * @param loader The isolated class loader.
+     * @param definition The style definition.
+     * @param name The field name of style.
+     * @return The selector.
+     */
+    private String selector(ClassLoader loader, Class definition, String name) throws Exception {
+        Object style = loader.loadClass(definition.getName()).getField(name).get(null);
+
+        return (String) loader.loadClass(Style.class.getName()).getMethod("selector").invoke(style);
+    }
+
+    @Test
+    void unusedUntouched() {
+        I.load(StyleIndexTest.class);
+
+        assert StyleUsage.unused().contains(Untouched.style);
+    }
+
+    /**
+     * Copy the compiled style definitions into the specified class output directory.
+     * 
+     * @param dir A class output directory.
+     * @return The class output directory.
+     */
+    private Path copy(Path dir) throws Exception {
+        Path file = dir.resolve(Styles.class.getName().replace('.', '/') + ".class");
+        Files.createDirectories(file.getParent());
+
+        try (InputStream input = Styles.class.getResourceAsStream(file.getFileName().toString())) {
+            Files.copy(input, file);
+        }
+        return dir;
+    }
+
+    /**
+     * Styles.
+     */
+    public static class Styles implements StyleDSL {
+
+        public static Style first = () -> {
+            display.block();
+        };
+
+        public static Style second = () -> {
+            display.none();
+        };
+
+        public static ValueStyle<CompilationTest.Size> size = value -> {
+            display.height(10, px);
+        };
+
+        public static String text = "ignored";
+    }
+
+    /**
+     * Styles.
+     */
+    public static class Lazy implements StyleDSL {
+
+        public static Style first = () -> {
+            display.block();
+        };
+
+        public static Style second = () -> {
+            display.none();
+        };
+    }
+
+    /**
+     * Styles which are never touched before formatting.
+     */
+    public static class Untouched implements StyleDSL {
+
+        public static Style style = () -> {
+            display.block();
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import stylist.StyleProfiler.Profile;
+
+class StyleProfilerTest extends StyleTester {
+
+    Style simple = () -> {
+        display.block();
+    };
+
+    Style nested = () -> {
+        display.block().width(10, px);
+
+        $.hover(() -> {
+            display.none();
+        });
+    };
+
+    Style heavy = () -> {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            builder.append(i);
+        }
+        display.width(builder.length(), px);
+    };
+
+    @AfterEach
+    void reset() {
+        StyleProfiler.stop();
+        StyleProfiler.reset();
+    }
+
+    @Test
+    void notProfiling() {
+        StyleRule.create(simple);
+
+        assert StyleProfiler.profile(simple) == null;
+    }
+
+    @Test
+    void profile() {
+        StyleProfiler.start();
+        StyleRule.create(simple);
+        StyleRule.create(simple);
+
+        Profile profile = StyleProfiler.profile(simple);
+        assert profile.count() == 2;
+        assert profile.declarations() == 2;
+        assert profile.time().isNegative() == false;
+    }
+
+    @Test
+    void nested() {
+        StyleProfiler.start();
+        StyleRule rule = StyleRule.create(nested);
+
+        assert StyleProfiler.profile(nested).declarations() == 2;
+        assert StyleProfiler.profile(nested.detail() + " " + rule.children.get(0).selector).declarations() == 1;
+    }
+
+    @Test
+    void allocated() {
+        StyleProfiler.start();
+        StyleRule.create(simple);
+        StyleRule.create(heavy);
+
+        assert StyleProfiler.profile(heavy).allocated() >= StyleProfiler.profile(simple).allocated();
+    }
+
+    @Test
+    void measureAllocationOnlyWhileProfiling() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        boolean enabled = bean.isThreadAllocatedMemoryEnabled();
+
+        try {
+            bean.setThreadAllocatedMemoryEnabled(false);
+            StyleProfiler.start();
+            assert bean.isThreadAllocatedMemoryEnabled();
+
+            StyleProfiler.stop();
+            assert bean.isThreadAllocatedMemoryEnabled() == false;
+        } finally {
+            bean.setThreadAllocatedMemoryEnabled(enabled);
+        }
+    }
+
+    @Test
+    void report() {
+        StyleProfiler.start();
+        StyleRule.create(simple);
+        StyleRule.create(heavy);
+
+        List<Profile> profiles = StyleProfiler.profiles();
+        assert profiles.size() == 2;
+        assert profiles.get(0).time().compareTo(profiles.get(1).time()) >= 0;
+
+        String[] lines = StyleProfiler.report().split("\n");
+        assert lines.length == 2;
+        assert lines[0].endsWith("\t" + profiles.get(0).key);
+        assert lines[0].matches("\\d+\t\\d+\t\\d+\t1\t.+");
+    }
+}
\ No newline at end of file
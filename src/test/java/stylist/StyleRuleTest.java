@@ -9,6 +9,11 @@
  */
 package stylist;
 
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.Test;
 
 /**
@@ -94,4 +99,170 @@ public class StyleRuleTest extends StyleTester {
         assert child.selector.match("*:enabled>" + style.selector());
         assert child.properties.get("text-decoration").get().match("underline");
     }
+
+    @Test
+    public void concurrent() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Style blocking = () -> {
+            display.block();
+            entered.countDown();
+
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            text.decoration.underline();
+        };
+
+        Style other = () -> {
+            display.none();
+        };
+
+        CompletableFuture<StyleRule> future = CompletableFuture.supplyAsync(() -> StyleRule.create(blocking));
+        assert entered.await(10, TimeUnit.SECONDS);
+
+        // the other thread is evaluating, but this thread is never blocked and never shares the context
+        StyleRule rule = StyleRule.create(other);
+        release.countDown();
+
+        assert rule.properties.size() == 1;
+        assert rule.properties.get("display").get().match("none");
+
+        StyleRule blocked = future.get(10, TimeUnit.SECONDS);
+        assert blocked.properties.size() == 2;
+        assert blocked.properties.get("display").get().match("block");
+    }
+
+    @Test
+    public void contextIsRestored() {
+        try {
+            StyleRule.create(() -> {
+                display.block();
+                throw new IllegalStateException();
+            });
+            throw new AssertionError();
+        } catch (IllegalStateException e) {
+            assert PropertyDefinition.rule() == null;
+        }
+    }
+
+    @Test
+    @SuppressWarnings("removal")
+    public void deprecatedRuleField() {
+        StyleRule[] seen = new StyleRule[2];
+        StyleRule created = StyleRule.create(() -> {
+            seen[0] = PropertyDefinition.rule;
+            seen[1] = PropertyDefinition.rule();
+        });
+
+        // the shared field is never written by the evaluation of any thread
+        assert seen[0] == null;
+        assert seen[1] == created;
+    }
+
+    @Test
+    public void snapshot() {
+        int[] count = {0};
+        Style style = () -> {
+            count[0]++;
+            display.block();
+
+            $.hover(() -> {
+                display.none();
+            });
+        };
+
+        StyleRule rule = StyleRule.snapshot(style);
+        assert rule == StyleRule.snapshot(style);
+        assert count[0] == 1;
+        assert rule.properties.isFrozen();
+        assert rule.children.get(0).properties.isFrozen();
+
+        StyleRule.invalidate(style);
+        assert rule != StyleRule.snapshot(style);
+        assert count[0] == 2;
+    }
+
+    @Test
+    public void snapshotIsImmutable() {
+        StyleRule rule = StyleRule.snapshot(() -> {
+            display.block();
+        });
+
+        try {
+            rule.properties.set("display", "none");
+            throw new AssertionError();
+        } catch (UnsupportedOperationException e) {
+            assert rule.properties.is("display", "block");
+        }
+    }
+
+    @Test
+    public void childrenOfSnapshotAreImmutable() {
+        StyleRule rule = StyleRule.snapshot(() -> {
+            display.block();
+
+            $.hover(() -> {
+                display.none();
+            });
+        });
+        StyleRule child = rule.children.get(0);
+
+        assert rejected(() -> rule.children.add(child));
+        assert rejected(() -> rule.children.clear());
+        assert rejected(() -> rule.children.set(0, child));
+        assert rejected(() -> rule.children.removeIf(item -> true));
+        assert rejected(() -> rule.children.subList(0, 1).set(0, child));
+        assert rejected(() -> {
+            Iterator<StyleRule> iterator = rule.children.iterator();
+            iterator.next();
+            iterator.remove();
+        });
+        assert rule.children.size() == 1;
+        assert rule.children.get(0) == child;
+    }
+
+    /**
+     * Test whether the specified modification is rejected or not.
+     * 
+     * @param modification A modification.
+     * @return A result.
+     */
+    private boolean rejected(Runnable modification) {
+        try {
+            modification.run();
+            return false;
+        } catch (UnsupportedOperationException e) {
+            return true;
+        }
+    }
+
+    @Test
+    public void snapshotIsSharedByFormatters() {
+        Style style = () -> {
+            margin.top(1, px).bottom(1, px).left(1, px).right(1, px);
+        };
+        StyleRule rule = StyleRule.snapshot(style);
+
+        String compacted = Stylist.compact().shorthand(true).postProcessor(p -> p.set("color", "red")).format(rule);
+        String plain = Stylist.compact().format(rule);
+
+        assert compacted.contains("margin:") && compacted.contains("color:red;");
+        assert plain.contains("margin-top:1px;") && plain.contains("color") == false;
+        assert rule.properties.size() == 4;
+    }
+
+    @Test
+    public void memoize() {
+        Style style = () -> {
+            display.block();
+        };
+
+        Stylist stylist = Stylist.compact().styles(style).memoize(true);
+        assert stylist.format().equals(Stylist.compact().styles(style).format());
+        assert stylist.format().equals(stylist.format());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import org.junit.jupiter.api.Test;
+
+class StyleSessionTest extends StyleTester {
+
+    @Test
+    void update() {
+        Stylist formatter = Stylist.compact().styles(Styles.class);
+        StyleSession session = formatter.session().update(Styles.class);
+
+        assert session.format().equals(formatter.format());
+    }
+
+    @Test
+    void reuseUnchangedStyles() {
+        Styles.width = 10;
+        StyleSession session = Stylist.compact().session().update(Styles.class);
+        String before = session.format();
+        assert before.contains(Styles.first.selector() + "{width:10px;}");
+        assert before.contains(Styles.second.selector() + "{width:10px;}");
+
+        Styles.width = 20;
+        String after = session.update(Styles.second).format();
+        assert after.contains(Styles.first.selector() + "{width:10px;}");
+        assert after.contains(Styles.second.selector() + "{width:20px;}");
+        assert after.indexOf(Styles.first.selector()) < after.indexOf(Styles.second.selector());
+        assert after.length() == before.length();
+
+        after = session.update(Styles.class).format();
+        assert after.contains(Styles.first.selector() + "{width:20px;}");
+        assert after.contains(Styles.second.selector() + "{width:20px;}");
+    }
+
+    @Test
+    void updateWithCache() {
+        Styles.width = 10;
+        StyleSession session = Stylist.compact().cache(new FragmentCache(10)).session().update(Styles.class);
+        assert session.format().contains(Styles.second.selector() + "{width:10px;}");
+
+        Styles.width = 20;
+        assert session.update(Styles.second).format().contains(Styles.second.selector() + "{width:20px;}");
+        Styles.width = 10;
+    }
+
+    @Test
+    void remove() {
+        StyleSession session = Stylist.compact().session().update(Styles.class);
+        assert session.format().contains(Styles.first.selector());
+
+        session.remove(Styles.class);
+        assert session.format().contains(Styles.first.selector()) == false;
+    }
+
+    public static class Styles implements StyleDSL {
+
+        static int width = 10;
+
+        public static Style first = () -> {
+            display.width(width, px);
+        };
+
+        public static Style second = () -> {
+            display.width(width, px);
+        };
+    }
+}
\ No newline at end of file
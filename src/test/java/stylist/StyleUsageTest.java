@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2021 stylist Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package stylist;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class StyleUsageTest extends StyleTester {
+
+    Style used = () -> {
+        display.block();
+    };
+
+    Style unused = () -> {
+        display.none();
+    };
+
+    @AfterEach
+    void reset() {
+        StyleUsage.stop();
+        StyleUsage.reset();
+    }
+
+    @Test
+    void count() {
+        StyleUsage.start();
+        used.className();
+        used.className();
+
+        assert StyleUsage.count(used) == 2;
+        assert StyleUsage.count(unused) == 0;
+        assert StyleUsage.isUsed(used);
+        assert StyleUsage.isUsed(unused) == false;
+    }
+
+    @Test
+    void notTracking() {
+        used.className();
+
+        assert StyleUsage.count(used) == 0;
+    }
+
+    @Test
+    void selectorIsNotCounted() {
+        StyleUsage.start();
+        used.selector();
+
+        assert StyleUsage.count(used) == 0;
+    }
+
+    @Test
+    void multiple() {
+        StyleUsage.start();
+        used.with(unused).className();
+
+        assert StyleUsage.count(used) == 1;
+        assert StyleUsage.count(unused) == 1;
+    }
+
+    @Test
+    void unused() {
+        StyleUsage.start();
+        used.className();
+        unused.selector();
+
+        assert StyleUsage.unused().contains(unused);
+        assert StyleUsage.unused().contains(used) == false;
+        assert StyleUsage.report().startsWith("1\t" + used.selector() + "\t");
+    }
+
+    @Test
+    void prune() {
+        StyleUsage.start();
+        used.className();
+
+        String formatted = Stylist.compact().styles(used, unused).pruneUnused(true).format();
+        assert formatted.contains(used.selector() + "{");
+        assert formatted.contains(unused.selector() + "{") == false;
+    }
+}
\ No newline at end of file
@@ -9,7 +9,17 @@
  */
 package stylist;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import stylist.value.Color;
 
@@ -103,4 +113,272 @@ class StylistTest extends StyleTester {
 
         assert formatter.format(color.rules).equals(color.selector() + "{color:rgb(18,18,18);}");
     }
+
+    @Test
+    void formatTo() {
+        Style style = () -> {
+            display.block();
+        };
+
+        StringBuilder output = new StringBuilder();
+        Stylist.compact().styles(style).formatTo(output);
+
+        assert output.toString().endsWith(style.selector() + "{display:block;}");
+    }
+
+    @Test
+    void deeplyNestedRule() {
+        Style style = () -> {
+            display.block();
+        };
+
+        StyleRule root = StyleRule.create(style);
+        StyleRule current = root;
+        for (int i = 0; i < 50000; i++) {
+            StyleRule child = StyleRule.create(style);
+            current.children.add(child);
+            current = child;
+        }
+
+        String formatted = Stylist.compact().format(root);
+        assert formatted.length() == (style.selector() + "{display:block;}").length() * 50001;
+    }
+
+    @Test
+    void formatToPath(@TempDir Path dir) throws Exception {
+        Style style = () -> {
+            display.block();
+            content.text("ä😀");
+        };
+
+        Stylist formatter = Stylist.pretty().styles(style);
+        Path output = formatter.formatTo(dir.resolve("nest/style.css"));
+
+        assert Files.readString(output).equals(formatter.format());
+    }
+
+    @Test
+    void hashFileName(@TempDir Path dir) throws Exception {
+        Style style = Style.named(".hashed", () -> {
+            display.block();
+        });
+
+        Stylist formatter = Stylist.compact().styles(style).hashFileName(true).precompress(new Precompression());
+        Path output = formatter.formatTo(dir.resolve("style.css"));
+        String name = output.getFileName().toString();
+
+        assert name.matches("style\\.[0-9a-f]{16}\\.css");
+        assert Files.readString(output).equals(formatter.format());
+        assert Files.exists(output.resolveSibling(name + ".gz"));
+        assert Files.notExists(dir.resolve("style.css"));
+        assert temporaries(dir) == 0;
+        assert Files.readString(dir.resolve("assets.json")).equals("{\n  \"style.css\": \"" + name + "\"\n}");
+
+        // same content is not rewritten
+        Files.setLastModifiedTime(output, FileTime.fromMillis(0));
+        assert formatter.formatTo(dir.resolve("style.css")).equals(output);
+        assert Files.getLastModifiedTime(output).toMillis() == 0;
+        assert temporaries(dir) == 0;
+
+        // changed content is written to the new file
+        Path other = Stylist.compact().styles(style).comment(true).hashFileName(true).formatTo(dir.resolve("other.css"));
+        Path changed = Stylist.pretty().styles(style).hashFileName(true).formatTo(dir.resolve("style.css"));
+        assert changed.equals(output) == false;
+        assert Files.exists(output);
+
+        String assets = Files.readString(dir.resolve("assets.json"));
+        assert assets.contains("\"style.css\": \"" + changed.getFileName() + "\"");
+        assert assets.contains("\"other.css\": \"" + other.getFileName() + "\"");
+    }
+
+    @Test
+    void hashFileNameRewritesBrokenFile(@TempDir Path dir) throws Exception {
+        Style style = Style.named(".broken", () -> {
+            display.block();
+        });
+
+        Stylist formatter = Stylist.compact().styles(style).hashFileName(true);
+        Path output = formatter.formatTo(dir.resolve("style.css"));
+
+        // the existing file with the same name but the different content is replaced
+        Files.writeString(output, "broken");
+        assert formatter.formatTo(dir.resolve("style.css")).equals(output);
+        assert Files.readString(output).equals(formatter.format());
+        assert temporaries(dir) == 0;
+    }
+
+    @Test
+    void hashFileNameKeepsOtherAssets(@TempDir Path dir) throws Exception {
+        Style style = Style.named(".assets", () -> {
+            display.block();
+        });
+
+        Files.writeString(dir.resolve("assets.json"), "{\"quoted \\\"name\\\".css\": \"back\\\\slash.css\"}");
+        Path output = Stylist.compact().styles(style).hashFileName(true).formatTo(dir.resolve("style.css"));
+
+        Map assets = (Map) Json.parse(Files.readString(dir.resolve("assets.json")));
+        assert assets.size() == 2;
+        assert assets.get("quoted \"name\".css").equals("back\\slash.css");
+        assert assets.get("style.css").equals(output.getFileName().toString());
+    }
+
+    @Test
+    void hashFileNameConcurrently(@TempDir Path dir) throws Exception {
+        Style style = Style.named(".concurrent", () -> {
+            display.block();
+        });
+
+        Stylist formatter = Stylist.compact().styles(style).hashFileName(true).precompress(new Precompression());
+        List<Path> outputs = IntStream.range(0, 8).parallel().mapToObj(i -> formatter.formatTo(dir.resolve("style.css"))).distinct().toList();
+
+        assert outputs.size() == 1;
+        assert Files.readString(outputs.get(0)).equals(formatter.format());
+        assert temporaries(dir) == 0;
+    }
+
+    /**
+     * Count the temporary files in the specified directory.
+     * 
+     * @param dir A target directory.
+     * @return The number of temporary files.
+     */
+    private static long temporaries(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().contains(".tmp")).count();
+        }
+    }
+
+    @Test
+    void vendors() {
+        Style style = Style.named(".vendors", () -> {
+            display.flex();
+            transform.rotate(10, deg);
+        });
+
+        assert Stylist.compact().styles(style).format().equals(".vendors{display:flex;transform:rotate(10deg);}");
+        assert Stylist.compact()
+                .styles(style)
+                .vendors(Vendor.Webkit)
+                .format()
+                .equals(".vendors{display:-webkit-flex;display:flex;-webkit-transform:rotate(10deg);transform:rotate(10deg);}");
+
+        // Safari and Webkit share the prefix
+        assert Stylist.compact().styles(style).vendors(Vendor.Safari).format().equals(Stylist.compact().styles(style).vendors(Vendor.Webkit).format());
+        assert Stylist.compact()
+                .styles(style)
+                .vendors(Vendor.Safari, Vendor.Webkit)
+                .format()
+                .equals(".vendors{display:-webkit-flex;display:flex;-webkit-transform:rotate(10deg);transform:rotate(10deg);}");
+
+        // untargeted vendor
+        assert Stylist.compact().styles(style).vendors(Vendor.MS).format().equals(".vendors{display:flex;transform:rotate(10deg);}");
+    }
+
+    @Test
+    void vendorsForName() {
+        Style style = Style.named(".name", () -> {
+            text.unselectable();
+        });
+
+        String formatted = Stylist.compact().styles(style).vendors(Vendor.Mozilla).format();
+        assert formatted.contains("-moz-user-select:none;user-select:none;");
+        assert formatted.contains("-ms-user-select") == false;
+        assert formatted.contains("-webkit-user-select") == false;
+    }
+
+    @Test
+    void parallel() {
+        Style[] styles = new Style[1000];
+        for (int i = 0; i < styles.length; i++) {
+            int width = i;
+            styles[i] = Style.named(".parallel" + i, () -> {
+                display.width(width, px);
+
+                $.hover(() -> {
+                    display.height(width, px);
+                });
+            });
+        }
+
+        String sequential = Stylist.pretty().styles(styles).format();
+        String parallel = Stylist.pretty().styles(styles).parallel(true).format();
+        assert parallel.equals(sequential);
+    }
+
+    @Test
+    void groupSelector() {
+        Style first = Style.named(".first", () -> {
+            display.block();
+        });
+        Style second = Style.named(".second", () -> {
+            display.block();
+        });
+
+        String formatted = Stylist.compact().styles(first, second).groupSelector(true).format();
+        assert formatted.equals(".first,.second{display:block;}") || formatted.equals(".second,.first{display:block;}");
+    }
+
+    @Test
+    void groupSelectorKeepsCascadeOrder() {
+        SelectorGrouping grouping = new SelectorGrouping();
+        grouping.add("", ".first", List.of("display"), "display:block;");
+        grouping.add("", ".between", List.of("display"), "display:none;");
+        grouping.add("", ".second", List.of("display"), "display:block;");
+        assert grouping.groups.size() == 3;
+
+        grouping = new SelectorGrouping();
+        grouping.add("", ".first", List.of("display"), "display:block;");
+        grouping.add("", ".between", List.of("width"), "width:10px;");
+        grouping.add("", ".second", List.of("display"), "display:block;");
+        assert grouping.groups.size() == 2;
+        assert grouping.groups.get(0).selector().equals(".first,.second");
+    }
+
+    @Test
+    void groupSelectorKeepsCascadeOrderOfShorthand() {
+        SelectorGrouping grouping = new SelectorGrouping();
+        grouping.add("", ".first", List.of("margin"), "margin:0;");
+        grouping.add("", ".between", List.of("margin-top"), "margin-top:10px;");
+        grouping.add("", ".second", List.of("margin"), "margin:0;");
+        assert grouping.groups.size() == 3;
+
+        grouping = new SelectorGrouping();
+        grouping.add("", ".first", List.of("margin-top"), "margin-top:0;");
+        grouping.add("", ".between", List.of("margin"), "margin:10px;");
+        grouping.add("", ".second", List.of("margin-top"), "margin-top:0;");
+        assert grouping.groups.size() == 3;
+
+        grouping = new SelectorGrouping();
+        grouping.add("", ".first", List.of("border-left-color"), "border-left-color:red;");
+        grouping.add("", ".between", List.of("border"), "border:none;");
+        grouping.add("", ".second", List.of("border-left-color"), "border-left-color:red;");
+        assert grouping.groups.size() == 3;
+    }
+
+    @Test
+    void groupSelectorPropertyFamily() {
+        assert SelectorGrouping.families("margin").equals(SelectorGrouping.families("margin-top"));
+        assert SelectorGrouping.families("flex").equals(SelectorGrouping.families("-webkit-flex-grow"));
+        assert SelectorGrouping.families("background").equals(SelectorGrouping.families("background-color"));
+        assert SelectorGrouping.families("line-height").equals(SelectorGrouping.families("font"));
+        assert SelectorGrouping.families("top").equals(SelectorGrouping.families("inset"));
+        assert SelectorGrouping.families("margin").equals(SelectorGrouping.families("padding")) == false;
+    }
+
+    @Test
+    void groupSelectorKeepsCascadeOrderOfAll() {
+        SelectorGrouping grouping = new SelectorGrouping();
+        grouping.add("", ".first", List.of("display"), "display:block;");
+        grouping.add("", ".between", List.of("all"), "all:unset;");
+        grouping.add("", ".second", List.of("display"), "display:block;");
+        assert grouping.groups.size() == 3;
+    }
+
+    @Test
+    void groupSelectorIgnoresVendorSelector() {
+        SelectorGrouping grouping = new SelectorGrouping();
+        grouping.add("", ".first::selection", List.of("color"), "color:red;");
+        grouping.add("", ".first::-moz-selection", List.of("color"), "color:red;");
+        assert grouping.groups.size() == 2;
+    }
 }
\ No newline at end of file